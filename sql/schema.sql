@@ -9,6 +9,15 @@
 
 -- Drop tables if they already exist
 -- NOTE: Order matters due to foreign keys
+-- NOTE: This script already includes every migration in src/main/resources/db/migration.
+--       Dropping schema_version makes the application re-run them; they are idempotent.
+DROP TABLE IF EXISTS schema_version;
+DROP TABLE IF EXISTS revenue_totals;
+DROP TABLE IF EXISTS revenue_monthly;
+DROP TABLE IF EXISTS revenue_monthly_status;
+DROP TABLE IF EXISTS scan_checkpoints;
+DROP TABLE IF EXISTS class_waitlist;
+DROP TABLE IF EXISTS class_bookings;
 DROP TABLE IF EXISTS memberships;
 DROP TABLE IF EXISTS workout_classes;
 DROP TABLE IF EXISTS gym_merch;
@@ -23,7 +32,8 @@ CREATE TABLE users (
     email VARCHAR(100) NOT NULL,
     phone_number VARCHAR(20),
     address VARCHAR(255),
-    role VARCHAR(20) NOT NULL  -- 'ADMIN', 'TRAINER', 'MEMBER'
+    role VARCHAR(20) NOT NULL,  -- 'ADMIN', 'TRAINER', 'MEMBER'
+    deleted_at TIMESTAMP        -- set when the user is deleted; the row is purged later (migration V3)
 );
 
 -- MEMBERSHIPS TABLE
@@ -45,6 +55,8 @@ CREATE TABLE memberships (
 
 -- WORKOUT CLASSES TABLE
 -- ============================================
+CREATE EXTENSION IF NOT EXISTS btree_gist;  -- migration V9, for ex_workout_classes_trainer_overlap
+
 CREATE TABLE workout_classes (
     workout_class_id SERIAL PRIMARY KEY,
     workout_class_type VARCHAR(50) NOT NULL,
@@ -52,10 +64,16 @@ CREATE TABLE workout_classes (
     trainer_id INT NOT NULL,
     schedule_time TIMESTAMP NOT NULL,
     capacity INT NOT NULL,
+    booked_count INT NOT NULL DEFAULT 0 CHECK (booked_count >= 0),  -- migration V7
+    duration_minutes INT NOT NULL DEFAULT 60 CHECK (duration_minutes > 0),  -- migration V9
     CONSTRAINT fk_workout_trainer
         FOREIGN KEY (trainer_id)
         REFERENCES users(user_id)
-        ON DELETE CASCADE
+        ON DELETE CASCADE,
+    -- A trainer cannot hold two overlapping classes (migration V9)
+    CONSTRAINT ex_workout_classes_trainer_overlap
+        EXCLUDE USING gist (trainer_id WITH =,
+            tsrange(schedule_time, schedule_time + duration_minutes * interval '1 minute') WITH &&)
 );
 
 
@@ -68,3 +86,134 @@ CREATE TABLE gym_merch (
     merch_price NUMERIC(10, 2) NOT NULL,
     quantity_in_stock INT NOT NULL
 );
+
+
+
+-- REVENUE TOTALS (migration V4)
+-- Running revenue per membership type, maintained by a trigger on memberships
+-- ============================================
+CREATE TABLE revenue_totals (
+    membership_type VARCHAR(50) PRIMARY KEY,
+    total_revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    membership_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE OR REPLACE FUNCTION maintain_revenue_totals() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE revenue_totals
+           SET total_revenue = total_revenue - OLD.membership_cost,
+               membership_count = membership_count - 1
+         WHERE membership_type = OLD.membership_type;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO revenue_totals (membership_type, total_revenue, membership_count)
+        VALUES (NEW.membership_type, NEW.membership_cost, 1)
+        ON CONFLICT (membership_type) DO UPDATE
+           SET total_revenue = revenue_totals.total_revenue + EXCLUDED.total_revenue,
+               membership_count = revenue_totals.membership_count + 1;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_memberships_revenue
+    AFTER INSERT OR DELETE OR UPDATE OF membership_type, membership_cost ON memberships
+    FOR EACH ROW EXECUTE FUNCTION maintain_revenue_totals();
+
+-- MONTHLY REVENUE ROLLUP (migration V5)
+-- Per-month revenue of closed months; a month is valid while it has a status row
+-- ============================================
+CREATE TABLE revenue_monthly (
+    month DATE NOT NULL,
+    membership_type VARCHAR(50) NOT NULL,
+    total_revenue NUMERIC(14, 2) NOT NULL,
+    membership_count BIGINT NOT NULL,
+    PRIMARY KEY (month, membership_type)
+);
+
+CREATE TABLE revenue_monthly_status (
+    month DATE PRIMARY KEY,
+    rolled_up_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE OR REPLACE FUNCTION invalidate_revenue_monthly() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.start_date < date_trunc('month', CURRENT_DATE) THEN
+        DELETE FROM revenue_monthly_status WHERE month = date_trunc('month', OLD.start_date);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.start_date < date_trunc('month', CURRENT_DATE) THEN
+        DELETE FROM revenue_monthly_status WHERE month = date_trunc('month', NEW.start_date);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_memberships_revenue_monthly
+    AFTER INSERT OR DELETE OR UPDATE OF membership_type, membership_cost, start_date ON memberships
+    FOR EACH ROW EXECUTE FUNCTION invalidate_revenue_monthly();
+
+-- CLASS BOOKINGS (migration V7)
+-- One row per member booked into a class; workout_classes.booked_count counts them
+-- ============================================
+CREATE TABLE class_bookings (
+    booking_id SERIAL PRIMARY KEY,
+    workout_class_id INT NOT NULL,
+    member_id INT NOT NULL,
+    booked_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT uq_class_bookings_class_member UNIQUE (workout_class_id, member_id),
+    CONSTRAINT fk_booking_class
+        FOREIGN KEY (workout_class_id)
+        REFERENCES workout_classes(workout_class_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_booking_member
+        FOREIGN KEY (member_id)
+        REFERENCES users(user_id)
+        ON DELETE CASCADE
+);
+
+-- CLASS WAITLIST (migration V8)
+-- Members waiting for a spot in a full class, promoted in waitlist_id order
+-- ============================================
+CREATE TABLE class_waitlist (
+    waitlist_id BIGSERIAL PRIMARY KEY,
+    workout_class_id INT NOT NULL,
+    member_id INT NOT NULL,
+    joined_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT uq_class_waitlist_class_member UNIQUE (workout_class_id, member_id),
+    CONSTRAINT fk_waitlist_class
+        FOREIGN KEY (workout_class_id)
+        REFERENCES workout_classes(workout_class_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_waitlist_member
+        FOREIGN KEY (member_id)
+        REFERENCES users(user_id)
+        ON DELETE CASCADE
+);
+
+-- SCAN CHECKPOINTS (migration V6)
+-- Resume point of each named background scan
+-- ============================================
+CREATE TABLE scan_checkpoints (
+    scan_name VARCHAR(100) PRIMARY KEY,
+    range_from DATE NOT NULL,
+    range_to DATE NOT NULL,
+    last_end_date DATE,
+    last_membership_id INTEGER,
+    processed_count BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- INDEXES (migrations V2, V3, V6, V7 and V8)
+-- ============================================
+CREATE INDEX idx_memberships_member_start ON memberships (member_id, start_date DESC);
+CREATE INDEX idx_memberships_start_date ON memberships (start_date);
+CREATE INDEX idx_memberships_end_date_id ON memberships (end_date, membership_id);
+CREATE INDEX idx_workout_classes_trainer_time ON workout_classes (trainer_id, schedule_time);
+CREATE INDEX idx_workout_classes_schedule_time ON workout_classes (schedule_time);
+CREATE INDEX idx_users_role_id ON users (role, user_id);
+CREATE INDEX idx_class_bookings_member ON class_bookings (member_id);
+CREATE INDEX idx_class_waitlist_class_order ON class_waitlist (workout_class_id, waitlist_id);
+CREATE INDEX idx_class_waitlist_member ON class_waitlist (member_id);
+CREATE INDEX idx_users_pending_purge ON users (deleted_at) WHERE deleted_at IS NOT NULL;
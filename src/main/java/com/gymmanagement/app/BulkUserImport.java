@@ -0,0 +1,78 @@
+package com.gymmanagement.app;
+
+import com.gymmanagement.service.UserImportReport;
+import com.gymmanagement.service.UserImportService;
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Command-line tool that registers users in bulk from a CSV file.
+ * <p>
+ * Usage: {@code BulkUserImport <users.csv> [failures.csv]}. The input needs a header row with
+ * at least {@code username,password,email}; {@code phone}, {@code address} and {@code role}
+ * are optional. A summary is printed, and rejected rows are written to the optional report
+ * file (or printed if none is given).
+ */
+public class BulkUserImport {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    /**
+     * Main entry point for the bulk import.
+     *
+     * @param args input CSV path, optionally followed by a path for the failure report
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: BulkUserImport <users.csv> [failures.csv]");
+            return;
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            long start = System.nanoTime();
+            UserImportReport report = new UserImportService().importUsers(in);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println("Rows read: " + report.getTotalRows());
+            System.out.println("Imported:  " + report.getImportedCount());
+            System.out.println("Failed:    " + report.getFailures().size());
+            System.out.println("Time:      " + millis + " ms");
+
+            if (args.length > 1) {
+                writeFailures(report, Path.of(args[1]));
+                System.out.println("Failure report written to " + args[1]);
+            } else {
+                for (UserImportReport.RowFailure failure : report.getFailures()) {
+                    System.out.println("  " + failure);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Bulk user import failed", e);
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+
+    private static void writeFailures(UserImportReport report, Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            out.println("line,username,reason");
+            for (UserImportReport.RowFailure failure : report.getFailures()) {
+                out.println(failure.getLineNumber() + "," + quote(failure.getUsername()) + "," + quote(failure.getReason()));
+            }
+        }
+    }
+
+    private static String quote(String value) {
+        return value == null ? "" : '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,5 +1,8 @@
 package com.gymmanagement.app;
 
+import com.gymmanagement.dao.MonthlyRevenue;
+import com.gymmanagement.dao.Page;
+import com.gymmanagement.model.Session;
 import com.gymmanagement.model.User;
 import com.gymmanagement.model.UserRole;
 import com.gymmanagement.model.WorkoutClass;
@@ -9,15 +12,26 @@ import com.gymmanagement.service.UserService;
 import com.gymmanagement.service.MembershipService;
 import com.gymmanagement.service.WorkoutClassService;
 import com.gymmanagement.service.GymMerchService;
+import com.gymmanagement.service.RevenueReportService;
+import com.gymmanagement.service.ScheduleConflictException;
+import com.gymmanagement.service.ServiceBusyException;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
 import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.SchemaMigrator;
 
 import java.io.Console;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.SortedMap;
 import java.util.logging.Logger;
 
 /**
@@ -33,10 +47,15 @@ public class GymManagementApp {
     private static final DateTimeFormatter DATE_TIME_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    // Days shown when browsing the class schedule
+    private static final int BROWSE_DAYS = 7;
+    private static final int USER_PAGE_SIZE = 20;
+
     private final UserService userService;
     private final MembershipService membershipService;
     private final WorkoutClassService workoutClassService;
     private final GymMerchService gymMerchService;
+    private final RevenueReportService revenueReportService;
     private final Scanner scanner;
 
     public GymManagementApp() {
@@ -44,6 +63,7 @@ public class GymManagementApp {
         this.membershipService = new MembershipService();
         this.workoutClassService = new WorkoutClassService();
         this.gymMerchService = new GymMerchService();
+        this.revenueReportService = new RevenueReportService();
         this.scanner = new Scanner(System.in);
     }
 
@@ -54,6 +74,15 @@ public class GymManagementApp {
      * @param args ignored command-line arguments
      */
     public static void main(String[] args) {
+        if (AppConfig.getBoolean("gym.db.migrateOnStartup", true)) {
+            try {
+                SchemaMigrator.migrate();
+            } catch (DataAccessException e) {
+                System.out.println("Could not update the database schema. See log for details.");
+                DBConnection.shutdown();
+                return;
+            }
+        }
         GymManagementApp app = new GymManagementApp();
         app.run();
     }
@@ -88,6 +117,7 @@ public class GymManagementApp {
                     running = false;
                     System.out.println("Exiting... Goodbye!");
                     LOGGER.info("Application exited by user.");
+                    DBConnection.shutdown();
                     break;
                 default:
                     System.out.println("Invalid option. Try again.");
@@ -161,7 +191,13 @@ public class GymManagementApp {
                 break;
         }
 
-        User newUser = userService.registerUser(username, password, email, phone, address, role);
+        User newUser;
+        try {
+            newUser = userService.registerUser(username, password, email, phone, address, role);
+        } catch (ServiceBusyException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
         if (newUser != null) {
             System.out.println("Registration successful! Your user ID is: " + newUser.getUserId());
         } else {
@@ -171,7 +207,8 @@ public class GymManagementApp {
 
     /**
      * Handles the login flow and dispatches the user to the correct
-     * role-specific menu upon successful authentication.
+     * role-specific menu upon successful authentication. A session is opened
+     * on login and closed again when the user logs out of their menu.
      */
     private void handleLogin() {
         System.out.println("\n--- Login ---");
@@ -181,12 +218,20 @@ public class GymManagementApp {
 
         String password = readPassword("Enter password: ");
 
-        User user = userService.login(username, password);
-        if (user == null) {
+        Session session;
+        try {
+            session = userService.startSession(username, password);
+        } catch (ServiceBusyException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (session == null) {
             System.out.println("Login failed. Check your username or password.");
             return;
         }
 
+        User user = session.getUser();
+
         System.out.println("Login successful! Welcome, " + user.getUsername() + " (" + user.getRole() + ")");
 
         switch (user.getRole()) {
@@ -202,6 +247,7 @@ public class GymManagementApp {
             default:
                 System.out.println("Unknown role. Logging out.");
         }
+        userService.logout(session.getToken());
     }
 
     // ===== ADMIN MENU & HELPERS =====
@@ -219,6 +265,9 @@ public class GymManagementApp {
             System.out.println("2. Delete a user");
             System.out.println("3. View all memberships & total revenue");
             System.out.println("4. Manage merch");
+            System.out.println("5. View system metrics");
+            System.out.println("6. Revenue report by month");
+            System.out.println("7. Active members by day");
             System.out.println("0. Logout");
             System.out.print("Enter option: ");
 
@@ -237,6 +286,15 @@ public class GymManagementApp {
                 case "4":
                     adminMerchMenu();
                     break;
+                case "5":
+                    showSystemMetrics();
+                    break;
+                case "6":
+                    showMonthlyRevenueReport();
+                    break;
+                case "7":
+                    showDailyActiveMembers();
+                    break;
                 case "0":
                     stay = false;
                     System.out.println("Logging out from Admin menu...");
@@ -248,10 +306,21 @@ public class GymManagementApp {
     }
 
     private void showAllUsers() {
-        List<User> users = userService.getAllUsers();
         System.out.println("\n--- All Users ---");
-        for (User u : users) {
-            System.out.println(u);
+        int afterUserId = 0;
+        while (true) {
+            Page<User> page = userService.getUsersPage(afterUserId, USER_PAGE_SIZE);
+            for (User u : page.getItems()) {
+                System.out.println(u);
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            System.out.print("-- Press Enter for more, or q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                break;
+            }
+            afterUserId = page.getNextKey();
         }
     }
 
@@ -277,10 +346,101 @@ public class GymManagementApp {
         for (Membership m : memberships) {
             System.out.println(m);
         }
+        for (Map.Entry<String, BigDecimal> entry : membershipService.getRevenueByType().entrySet()) {
+            System.out.println("  " + entry.getKey() + ": $" + entry.getValue());
+        }
         BigDecimal totalRevenue = membershipService.getTotalRevenue();
         System.out.println("Total Membership Revenue: $" + totalRevenue);
     }
 
+    private void showMonthlyRevenueReport() {
+        YearMonth from;
+        YearMonth to;
+        try {
+            System.out.print("From month (yyyy-MM): ");
+            from = YearMonth.parse(scanner.nextLine().trim());
+            System.out.print("To month (yyyy-MM): ");
+            to = YearMonth.parse(scanner.nextLine().trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid month format.");
+            return;
+        }
+        if (to.isBefore(from)) {
+            System.out.println("The end month must not be before the start month.");
+            return;
+        }
+
+        System.out.println("\n--- Revenue by Month ---");
+        List<MonthlyRevenue> report = revenueReportService.getMonthlyRevenue(from, to);
+        if (report.isEmpty()) {
+            System.out.println("No membership revenue in this period.");
+            return;
+        }
+        BigDecimal grandTotal = BigDecimal.ZERO;
+        int i = 0;
+        while (i < report.size()) {
+            YearMonth month = report.get(i).getMonth();
+            BigDecimal monthTotal = BigDecimal.ZERO;
+            System.out.println(month + ":");
+            for (; i < report.size() && report.get(i).getMonth().equals(month); i++) {
+                MonthlyRevenue row = report.get(i);
+                System.out.println("  " + row.getMembershipType() + ": $" + row.getTotalRevenue() +
+                        " (" + row.getMembershipCount() + " memberships)");
+                monthTotal = monthTotal.add(row.getTotalRevenue());
+            }
+            System.out.println("  Month total: $" + monthTotal);
+            grandTotal = grandTotal.add(monthTotal);
+        }
+        System.out.println("Total for period: $" + grandTotal);
+    }
+
+    private void showDailyActiveMembers() {
+        LocalDate from;
+        LocalDate to;
+        try {
+            System.out.print("From date (yyyy-MM-dd): ");
+            from = LocalDate.parse(scanner.nextLine().trim());
+            System.out.print("To date (yyyy-MM-dd): ");
+            to = LocalDate.parse(scanner.nextLine().trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format.");
+            return;
+        }
+        if (to.isBefore(from)) {
+            System.out.println("The end date must not be before the start date.");
+            return;
+        }
+
+        try {
+            SortedMap<LocalDate, Integer> counts = membershipService.getDailyActiveMemberCounts(from, to);
+            System.out.println("\n--- Active Members by Day ---");
+            for (Map.Entry<LocalDate, Integer> entry : counts.entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+            }
+        } catch (DataAccessException e) {
+            System.out.println("Could not load membership data. Please try again later.");
+        }
+    }
+
+    private void showSystemMetrics() {
+        System.out.println("\n--- System Metrics ---");
+        System.out.println("Database pool: " + DBConnection.getPoolStats());
+        if (DBConnection.getReplicaPoolStats() != null) {
+            System.out.println("Replica pool: " + DBConnection.getReplicaPoolStats());
+        }
+        System.out.println("Reads served by replica: " + DBConnection.getReplicaReadCount() +
+                ", by primary: " + DBConnection.getPrimaryReadCount());
+        System.out.println("User cache: " + userService.getUserCacheStats());
+        System.out.println("Password hashing: " + userService.getHashingStats());
+        System.out.println(userService.getSessionStats());
+        System.out.println("Login throttle: " + userService.getLoginThrottleStats());
+        System.out.println(userService.getPurgeStats());
+        System.out.println(workoutClassService.getCapacityStats());
+        System.out.println(workoutClassService.getWaitlistStats());
+        System.out.println(workoutClassService.getCalendarStats());
+        System.out.println(workoutClassService.getScheduleStats());
+    }
+
     private void adminMerchMenu() {
         boolean stay = true;
         while (stay) {
@@ -410,15 +570,20 @@ public class GymManagementApp {
         System.out.print("Enter schedule time (yyyy-MM-dd HH:mm): ");
         String timeStr = scanner.nextLine().trim();
 
+        System.out.print("Enter duration in minutes [" + WorkoutClass.DEFAULT_DURATION_MINUTES + "]: ");
+        String durationStr = scanner.nextLine().trim();
+
         System.out.print("Enter capacity: ");
         String capStr = scanner.nextLine().trim();
 
         try {
             LocalDateTime scheduleTime = LocalDateTime.parse(timeStr, DATE_TIME_FORMATTER);
+            int durationMinutes = durationStr.isEmpty()
+                    ? WorkoutClass.DEFAULT_DURATION_MINUTES : Integer.parseInt(durationStr);
             int capacity = Integer.parseInt(capStr);
 
             WorkoutClass created = workoutClassService.createClass(
-                    trainer.getUserId(), type, description, scheduleTime, capacity
+                    trainer.getUserId(), type, description, scheduleTime, durationMinutes, capacity
             );
 
             if (created != null) {
@@ -430,7 +595,9 @@ public class GymManagementApp {
         } catch (DateTimeParseException e) {
             System.out.println("Invalid date/time format. Please use yyyy-MM-dd HH:mm");
         } catch (NumberFormatException e) {
-            System.out.println("Invalid capacity value.");
+            System.out.println("Invalid duration or capacity value.");
+        } catch (ScheduleConflictException e) {
+            System.out.println("Cannot schedule the class: " + e.getMessage());
         }
     }
 
@@ -450,27 +617,41 @@ public class GymManagementApp {
             System.out.print("Enter new schedule time (yyyy-MM-dd HH:mm): ");
             String timeStr = scanner.nextLine().trim();
 
+            System.out.print("Enter new duration in minutes: ");
+            String durationStr = scanner.nextLine().trim();
+
             System.out.print("Enter new capacity: ");
             String capStr = scanner.nextLine().trim();
 
             LocalDateTime scheduleTime = LocalDateTime.parse(timeStr, DATE_TIME_FORMATTER);
+            int durationMinutes = Integer.parseInt(durationStr);
             int capacity = Integer.parseInt(capStr);
 
             WorkoutClass updatedClass = new WorkoutClass(
                     classId, type, description, trainer.getUserId(), scheduleTime, capacity
             );
+            updatedClass.setDurationMinutes(durationMinutes);
 
-            boolean updated = workoutClassService.updateClass(updatedClass);
-            if (updated) {
-                System.out.println("Workout class updated successfully.");
-            } else {
-                System.out.println("Failed to update workout class. Check the ID and ownership.");
+            switch (workoutClassService.updateClass(updatedClass)) {
+                case UPDATED:
+                    System.out.println("Workout class updated successfully.");
+                    break;
+                case NOT_FOUND:
+                    System.out.println("Failed to update workout class. Check the ID and ownership.");
+                    break;
+                case CAPACITY_BELOW_BOOKINGS:
+                    System.out.println("The capacity cannot be lower than the number of members already booked.");
+                    break;
+                default:
+                    System.out.println("Failed to update workout class.");
             }
 
         } catch (NumberFormatException e) {
-            System.out.println("Invalid ID or capacity value.");
+            System.out.println("Invalid ID, duration or capacity value.");
         } catch (DateTimeParseException e) {
             System.out.println("Invalid date/time format. Please use yyyy-MM-dd HH:mm");
+        } catch (ScheduleConflictException e) {
+            System.out.println("Cannot reschedule the class: " + e.getMessage());
         }
     }
 
@@ -545,6 +726,10 @@ public class GymManagementApp {
             System.out.println("2. View my membership expenses");
             System.out.println("3. Purchase membership");
             System.out.println("4. View merch items");
+            System.out.println("5. Book a workout class");
+            System.out.println("6. Cancel a class booking");
+            System.out.println("7. View my class bookings");
+            System.out.println("8. Leave a class waitlist");
             System.out.println("0. Logout");
             System.out.print("Enter option: ");
 
@@ -563,6 +748,18 @@ public class GymManagementApp {
                 case "4":
                     listAllMerch();
                     break;
+                case "5":
+                    bookWorkoutClass(member);
+                    break;
+                case "6":
+                    cancelClassBooking(member);
+                    break;
+                case "7":
+                    viewMyBookings(member);
+                    break;
+                case "8":
+                    leaveClassWaitlist(member);
+                    break;
                 case "0":
                     stay = false;
                     System.out.println("Logging out from Member menu...");
@@ -574,8 +771,129 @@ public class GymManagementApp {
     }
 
     private void browseWorkoutClasses() {
-        List<WorkoutClass> classes = workoutClassService.getAllClasses();
-        System.out.println("\n--- Available Workout Classes ---");
+        System.out.print("Enter a date (yyyy-MM-dd) or press Enter for the next 7 days: ");
+        String dateStr = scanner.nextLine().trim();
+
+        List<WorkoutClass> classes;
+        try {
+            if (dateStr.isEmpty()) {
+                classes = workoutClassService.getUpcomingClasses(BROWSE_DAYS);
+                System.out.println("\n--- Workout Classes in the Next " + BROWSE_DAYS + " Days ---");
+            } else {
+                LocalDate day = LocalDate.parse(dateStr);
+                classes = workoutClassService.getClassesOn(day);
+                System.out.println("\n--- Workout Classes on " + day + " ---");
+            }
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format.");
+            return;
+        } catch (DataAccessException e) {
+            System.out.println("Could not load the class schedule. Please try again later.");
+            return;
+        }
+
+        if (classes.isEmpty()) {
+            System.out.println("No classes scheduled.");
+        }
+        LocalDate currentDay = null;
+        for (WorkoutClass wc : classes) {
+            LocalDate day = wc.getScheduleTime().toLocalDate();
+            if (!day.equals(currentDay)) {
+                System.out.println(day + " (" + day.getDayOfWeek() + ")");
+                currentDay = day;
+            }
+            System.out.println("  " + wc);
+        }
+    }
+
+    private void bookWorkoutClass(User member) {
+        System.out.print("Enter class ID to book: ");
+        int classId;
+        try {
+            classId = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID.");
+            return;
+        }
+
+        switch (workoutClassService.bookClass(classId, member.getUserId())) {
+            case BOOKED:
+                System.out.println("Class booked successfully.");
+                break;
+            case ALREADY_BOOKED:
+                System.out.println("You have already booked this class.");
+                break;
+            case CLASS_FULL:
+                System.out.println("Sorry, this class is full.");
+                offerWaitlist(classId, member);
+                break;
+            case CLASS_NOT_AVAILABLE:
+                System.out.println("This class does not exist or has already started.");
+                break;
+            case FAILED:
+            default:
+                System.out.println("Booking failed. Please try again later.");
+        }
+    }
+
+    private void offerWaitlist(int classId, User member) {
+        System.out.print("Join the waitlist? (y/n): ");
+        if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            return;
+        }
+        switch (workoutClassService.joinWaitlist(classId, member.getUserId())) {
+            case CREATED:
+                int position = workoutClassService.getWaitlistPosition(classId, member.getUserId());
+                if (position > 0) {
+                    System.out.println("You are number " + position + " on the waitlist. " +
+                            "You will be booked automatically when a spot frees up.");
+                } else {
+                    System.out.println("You have been booked from the waitlist.");
+                }
+                break;
+            case DUPLICATE:
+                System.out.println("You are already on the waitlist or booked for this class.");
+                break;
+            case FAILED:
+            default:
+                System.out.println("Could not join the waitlist. Please try again later.");
+        }
+    }
+
+    private void leaveClassWaitlist(User member) {
+        System.out.print("Enter class ID: ");
+        try {
+            int classId = Integer.parseInt(scanner.nextLine().trim());
+            if (workoutClassService.leaveWaitlist(classId, member.getUserId())) {
+                System.out.println("You have left the waitlist.");
+            } else {
+                System.out.println("You are not on the waitlist for that class.");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID.");
+        }
+    }
+
+    private void cancelClassBooking(User member) {
+        System.out.print("Enter class ID to cancel: ");
+        try {
+            int classId = Integer.parseInt(scanner.nextLine().trim());
+            if (workoutClassService.cancelBooking(classId, member.getUserId())) {
+                System.out.println("Booking cancelled.");
+            } else {
+                System.out.println("No booking found for that class.");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID.");
+        }
+    }
+
+    private void viewMyBookings(User member) {
+        List<WorkoutClass> classes = workoutClassService.getBookedClasses(member.getUserId());
+        System.out.println("\n--- My Class Bookings ---");
+        if (classes.isEmpty()) {
+            System.out.println("You have no class bookings.");
+        }
         for (WorkoutClass wc : classes) {
             System.out.println(wc);
         }
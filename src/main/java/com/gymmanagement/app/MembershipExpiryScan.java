@@ -0,0 +1,62 @@
+package com.gymmanagement.app;
+
+import com.gymmanagement.dao.ScanCheckpoint;
+import com.gymmanagement.model.Membership;
+import com.gymmanagement.service.ExpiryBatchHandler;
+import com.gymmanagement.service.MembershipExpiryScanner;
+import com.gymmanagement.util.DBConnection;
+
+/**
+ * Command-line job that lists memberships by end date, meant to be run nightly.
+ * <p>
+ * Usage: {@code MembershipExpiryScan [--expiring <days> | --expired <days>]} (default
+ * {@code --expiring 7}). Prints one line per membership that ends within the next (or ended
+ * within the last) number of days. Running it again for the same day continues an interrupted
+ * run, or does nothing if that day's run already finished. Exits with status 1 if the scan
+ * could not complete.
+ */
+public class MembershipExpiryScan {
+
+    /**
+     * Main entry point for the expiry scan.
+     *
+     * @param args {@code --expiring <days>} or {@code --expired <days>}
+     */
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "--expiring";
+        int days;
+        try {
+            days = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        } catch (NumberFormatException e) {
+            days = -1;
+        }
+        if (days < 0 || !(mode.equals("--expiring") || mode.equals("--expired"))) {
+            System.out.println("Usage: MembershipExpiryScan [--expiring <days> | --expired <days>]");
+            System.exit(2);
+            return;
+        }
+
+        ExpiryBatchHandler printer = memberships -> {
+            for (Membership m : memberships) {
+                System.out.println(m.getEndDate() + "  member " + m.getMemberId() +
+                        "  membership " + m.getMembershipId() + " (" + m.getMembershipType() + ")");
+            }
+        };
+
+        ScanCheckpoint result;
+        try {
+            MembershipExpiryScanner scanner = new MembershipExpiryScanner();
+            result = mode.equals("--expiring")
+                    ? scanner.scanExpiringWithin(days, printer)
+                    : scanner.scanExpiredWithin(days, printer);
+        } finally {
+            DBConnection.shutdown();
+        }
+
+        System.out.println(result.getProcessedCount() + " membership(s) " +
+                (result.isCompleted() ? "scanned." : "scanned before the scan stopped. See log for details."));
+        if (!result.isCompleted()) {
+            System.exit(1);
+        }
+    }
+}
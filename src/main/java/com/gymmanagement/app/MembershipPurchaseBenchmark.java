@@ -0,0 +1,97 @@
+package com.gymmanagement.app;
+
+import com.gymmanagement.dao.MembershipDAO;
+import com.gymmanagement.model.Membership;
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.UnitOfWork;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line benchmark comparing one-insert-per-membership with the batched insert used by
+ * {@code MembershipService.purchaseMemberships}.
+ * <p>
+ * Usage: {@code MembershipPurchaseBenchmark [count]} (default 1000). Everything runs in one
+ * transaction that is rolled back at the end, so the database is left unchanged. Because the
+ * per-row inserts share that transaction, the figures understate the real per-row cost, which
+ * also includes taking a connection and committing for every purchase.
+ */
+public class MembershipPurchaseBenchmark {
+
+    /**
+     * Main entry point for the benchmark.
+     *
+     * @param args optional number of memberships to insert with each method
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        MembershipDAO membershipDAO = new MembershipDAO();
+
+        try {
+            UnitOfWork.inTransaction(() -> {
+                int memberId = insertSyntheticMember();
+
+                long start = System.nanoTime();
+                for (Membership membership : newMemberships(memberId, count)) {
+                    if (membershipDAO.createMembership(membership) == null) {
+                        throw new DataAccessException("Per-row insert failed", null);
+                    }
+                }
+                long perRowNanos = System.nanoTime() - start;
+
+                List<Membership> batch = newMemberships(memberId, count);
+                start = System.nanoTime();
+                if (membershipDAO.createMemberships(batch) == null) {
+                    throw new DataAccessException("Batch insert failed", null);
+                }
+                long batchNanos = System.nanoTime() - start;
+
+                print("Per-row inserts", count, perRowNanos);
+                print("Batched insert ", count, batchNanos);
+                System.out.printf("Speed-up: %.1fx%n", (double) perRowNanos / Math.max(1, batchNanos));
+
+                UnitOfWork.setRollbackOnly();
+                return null;
+            });
+        } catch (DataAccessException e) {
+            System.out.println("Benchmark failed: " + e.getMessage());
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+
+    private static int insertSyntheticMember() {
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("INSERT INTO users (username, password_hash, email, role) " +
+                     "VALUES ('purchase_benchmark', 'x', 'benchmark@example.com', 'MEMBER') RETURNING user_id")) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create the benchmark member", e);
+        }
+    }
+
+    private static List<Membership> newMemberships(int memberId, int count) {
+        LocalDate today = LocalDate.now();
+        List<Membership> memberships = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            memberships.add(new Membership(0, "Monthly", "Benchmark", new BigDecimal("49.99"),
+                    memberId, today, today.plusMonths(1)));
+        }
+        return memberships;
+    }
+
+    private static void print(String label, int count, long nanos) {
+        double millis = nanos / 1_000_000.0;
+        System.out.printf("%s: %d rows in %.1f ms (%.0f rows/s)%n", label, count, millis, count / (millis / 1000));
+    }
+}
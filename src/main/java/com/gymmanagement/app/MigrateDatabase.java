@@ -0,0 +1,37 @@
+package com.gymmanagement.app;
+
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.SchemaMigrator;
+
+import java.util.List;
+
+/**
+ * Command-line tool that applies pending schema migrations without starting the application.
+ * <p>
+ * The main application already migrates on startup; this is handy for preparing a database in
+ * advance, or a second database used as a stand-in read replica
+ * ({@code -Dgym.db.url=<replica url>}).
+ */
+public class MigrateDatabase {
+
+    /**
+     * Main entry point for running migrations.
+     *
+     * @param args ignored command-line arguments
+     */
+    public static void main(String[] args) {
+        try {
+            List<Integer> applied = SchemaMigrator.migrate();
+            if (applied.isEmpty()) {
+                System.out.println("Database schema is already up to date.");
+            } else {
+                System.out.println("Applied schema versions: " + applied);
+            }
+        } catch (DataAccessException e) {
+            System.out.println("Migration failed: " + e.getMessage());
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.gymmanagement.app;
+
+import com.gymmanagement.dao.MembershipDAO;
+import com.gymmanagement.dao.RevenueDrift;
+import com.gymmanagement.util.DBConnection;
+
+import java.util.List;
+
+/**
+ * Command-line check that the maintained revenue totals match the memberships table.
+ * <p>
+ * Usage: {@code RevenueConsistencyCheck [--repair]}. Recomputes revenue per membership type
+ * from scratch, prints every type whose stored total has drifted, and with {@code --repair}
+ * rebuilds the totals. Exits with status 1 if drift was found and not repaired.
+ */
+public class RevenueConsistencyCheck {
+
+    /**
+     * Main entry point for the revenue consistency check.
+     *
+     * @param args {@code --repair} to rebuild the totals when drift is found
+     */
+    public static void main(String[] args) {
+        boolean repair = args.length > 0 && args[0].equals("--repair");
+        MembershipDAO membershipDAO = new MembershipDAO();
+        int status = 0;
+
+        try {
+            List<RevenueDrift> drift = membershipDAO.findRevenueDrift();
+            if (drift == null) {
+                System.out.println("Revenue check failed. See log for details.");
+                status = 1;
+            } else if (drift.isEmpty()) {
+                System.out.println("Revenue totals are consistent.");
+            } else {
+                System.out.println("Revenue totals have drifted for " + drift.size() + " membership type(s):");
+                for (RevenueDrift d : drift) {
+                    System.out.println("  " + d);
+                }
+                if (repair && membershipDAO.rebuildRevenueTotals()) {
+                    System.out.println("Revenue totals rebuilt.");
+                } else {
+                    System.out.println(repair ? "Rebuild failed. See log for details." : "Run with --repair to rebuild them.");
+                    status = 1;
+                }
+            }
+        } finally {
+            DBConnection.shutdown();
+        }
+
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+}
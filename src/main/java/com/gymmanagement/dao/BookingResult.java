@@ -0,0 +1,31 @@
+package com.gymmanagement.dao;
+
+/**
+ * Outcome of an attempt to book a spot in a workout class.
+ */
+public enum BookingResult {
+    /**
+     * The spot was booked.
+     */
+    BOOKED,
+
+    /**
+     * The member already has a booking for this class.
+     */
+    ALREADY_BOOKED,
+
+    /**
+     * Every spot in the class is taken.
+     */
+    CLASS_FULL,
+
+    /**
+     * The class does not exist or has already started.
+     */
+    CLASS_NOT_AVAILABLE,
+
+    /**
+     * The booking failed because of a database error (see the log for details).
+     */
+    FAILED
+}
@@ -0,0 +1,180 @@
+package com.gymmanagement.dao;
+
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.UnitOfWork;
+
+import java.sql.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Data Access Object (DAO) for bookings of workout classes.
+ * <p>
+ * A class's {@code booked_count} is only ever increased by a conditional
+ * {@code UPDATE ... WHERE booked_count < capacity}, in the same transaction that inserts the
+ * booking row, so a class can never be booked beyond its capacity no matter how many
+ * application instances book at once. While anyone is on a class's waitlist, free spots are
+ * kept for them (see {@link ClassWaitlistDAO#promoteNext(int)}).
+ */
+public class ClassBookingDAO {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    /**
+     * Books a spot in an upcoming class for a member. Reports {@link BookingResult#CLASS_FULL}
+     * while the class has a waitlist, so nobody can jump the queue.
+     *
+     * @param workoutClassId the class to book
+     * @param memberId       the member's user ID
+     * @return the {@link BookingResult}
+     */
+    public BookingResult bookSpot(int workoutClassId, int memberId) {
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE workout_classes SET booked_count = booked_count + 1 " +
+                                    "WHERE workout_class_id = ? AND booked_count < capacity AND schedule_time > LOCALTIMESTAMP " +
+                                    "AND NOT EXISTS (SELECT 1 FROM class_waitlist WHERE workout_class_id = ?)")) {
+                        stmt.setInt(1, workoutClassId);
+                        stmt.setInt(2, workoutClassId);
+                        if (stmt.executeUpdate() == 0) {
+                            UnitOfWork.setRollbackOnly();
+                            return classifyRejection(conn, workoutClassId);
+                        }
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "INSERT INTO class_bookings (workout_class_id, member_id) VALUES (?, ?) " +
+                                    "ON CONFLICT (workout_class_id, member_id) DO NOTHING")) {
+                        stmt.setInt(1, workoutClassId);
+                        stmt.setInt(2, memberId);
+                        if (stmt.executeUpdate() == 0) {
+                            // Give the spot taken above back
+                            UnitOfWork.setRollbackOnly();
+                            return BookingResult.ALREADY_BOOKED;
+                        }
+                    }
+                    return BookingResult.BOOKED;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not book class " + workoutClassId, e);
+                }
+            });
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Error booking class id " + workoutClassId + " for memberId=" + memberId, e);
+            return BookingResult.FAILED;
+        }
+    }
+
+    /**
+     * Cancels a member's booking and frees the spot.
+     *
+     * @param workoutClassId the booked class
+     * @param memberId       the member's user ID
+     * @return {@code true} if a booking was cancelled; {@code false} if there was none or on error
+     */
+    public boolean cancelBooking(int workoutClassId, int memberId) {
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "DELETE FROM class_bookings WHERE workout_class_id = ? AND member_id = ?")) {
+                        stmt.setInt(1, workoutClassId);
+                        stmt.setInt(2, memberId);
+                        if (stmt.executeUpdate() == 0) {
+                            return false;
+                        }
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE workout_classes SET booked_count = booked_count - 1 WHERE workout_class_id = ?")) {
+                        stmt.setInt(1, workoutClassId);
+                        stmt.executeUpdate();
+                    }
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not cancel booking for class " + workoutClassId, e);
+                }
+            });
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Error cancelling booking of class id " + workoutClassId +
+                    " for memberId=" + memberId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns how many spots of an upcoming class are still free.
+     *
+     * @param workoutClassId the class
+     * @return free spots (0 if the class is full or has started), or {@code null} if the class
+     * does not exist or on error
+     */
+    public Integer findRemainingSpots(int workoutClassId) {
+        String sql = "SELECT CASE WHEN schedule_time > LOCALTIMESTAMP " +
+                "THEN GREATEST(capacity - booked_count, 0) ELSE 0 END AS remaining " +
+                "FROM workout_classes WHERE workout_class_id = ?";
+
+        // Primary: the answer is used to decide whether to attempt a booking right now
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, workoutClassId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("remaining");
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading free spots of class id " + workoutClassId, e);
+        }
+        return null;
+    }
+
+    /**
+     * Cancels up to {@code batchSize} bookings of one member, freeing their spots, in a short
+     * statement of its own. Used to purge a deleted member's bookings a little at a time.
+     *
+     * @param memberId  the member's user ID
+     * @param batchSize maximum number of bookings to cancel
+     * @return the number of bookings cancelled, or {@code -1} if there was an error
+     */
+    public int deleteBookingsForMemberBatch(int memberId, int batchSize) {
+        String sql = "WITH deleted AS (" +
+                "  DELETE FROM class_bookings WHERE booking_id IN " +
+                "    (SELECT booking_id FROM class_bookings WHERE member_id = ? LIMIT ?) " +
+                "  RETURNING workout_class_id), " +
+                "released AS (" +
+                "  UPDATE workout_classes c SET booked_count = c.booked_count - d.n " +
+                "  FROM (SELECT workout_class_id, COUNT(*) AS n FROM deleted GROUP BY workout_class_id) d " +
+                "  WHERE c.workout_class_id = d.workout_class_id) " +
+                "SELECT COUNT(*) AS cancelled FROM deleted";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, memberId);
+            stmt.setInt(2, batchSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt("cancelled");
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error deleting bookings for member id: " + memberId, e);
+            return -1;
+        }
+    }
+
+    private BookingResult classifyRejection(Connection conn, int workoutClassId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT schedule_time > LOCALTIMESTAMP AS upcoming FROM workout_classes WHERE workout_class_id = ?")) {
+            stmt.setInt(1, workoutClassId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getBoolean("upcoming")) {
+                    return BookingResult.CLASS_FULL;
+                }
+            }
+        }
+        return BookingResult.CLASS_NOT_AVAILABLE;
+    }
+}
@@ -0,0 +1,26 @@
+package com.gymmanagement.dao;
+
+/**
+ * Outcome of an attempt to update a workout class.
+ */
+public enum ClassUpdateResult {
+    /**
+     * The class was updated.
+     */
+    UPDATED,
+
+    /**
+     * The class does not exist or belongs to another trainer.
+     */
+    NOT_FOUND,
+
+    /**
+     * The new capacity is lower than the number of members already booked.
+     */
+    CAPACITY_BELOW_BOOKINGS,
+
+    /**
+     * The update failed because of a database error (see the log for details).
+     */
+    FAILED
+}
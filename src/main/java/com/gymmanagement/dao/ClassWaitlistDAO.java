@@ -0,0 +1,213 @@
+package com.gymmanagement.dao;
+
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.UnitOfWork;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Data Access Object (DAO) for the waitlists of full workout classes.
+ * <p>
+ * The table is the source of truth for who is waiting and in which order; promotion always
+ * takes the oldest entry in the database, so it stays fair even when several application
+ * instances share the database.
+ */
+public class ClassWaitlistDAO {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    /**
+     * Adds a member to the end of an upcoming class's waitlist, unless they are already waiting
+     * for or booked into that class. A class that has started cannot be joined, since nobody
+     * would ever be promoted from its waitlist.
+     *
+     * @param workoutClassId the class
+     * @param memberId       the member's user ID
+     * @return {@link InsertResult#CREATED}, {@link InsertResult#DUPLICATE} if the member is
+     * already waiting or booked, or {@link InsertResult#FAILED} if the class does not exist,
+     * has started, or on error
+     */
+    public InsertResult joinWaitlist(int workoutClassId, int memberId) {
+        String sql = "INSERT INTO class_waitlist (workout_class_id, member_id) " +
+                "SELECT workout_class_id, ? FROM workout_classes " +
+                "WHERE workout_class_id = ? AND schedule_time > LOCALTIMESTAMP AND NOT EXISTS " +
+                "(SELECT 1 FROM class_bookings WHERE workout_class_id = ? AND member_id = ?) " +
+                "ON CONFLICT (workout_class_id, member_id) DO NOTHING";
+
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, memberId);
+                stmt.setInt(2, workoutClassId);
+                stmt.setInt(3, workoutClassId);
+                stmt.setInt(4, memberId);
+                if (stmt.executeUpdate() > 0) {
+                    return InsertResult.CREATED;
+                }
+            }
+
+            // Nothing inserted: either the member is already in, or the class is not open
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT 1 FROM workout_classes WHERE workout_class_id = ? AND schedule_time > LOCALTIMESTAMP")) {
+                stmt.setInt(1, workoutClassId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return InsertResult.DUPLICATE;
+                    }
+                }
+            }
+            LOGGER.info("Waitlist join refused, class id " + workoutClassId + " does not exist or has started");
+            return InsertResult.FAILED;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error adding memberId=" + memberId + " to waitlist of class id " + workoutClassId, e);
+            return InsertResult.FAILED;
+        }
+    }
+
+    /**
+     * Removes a member from a class's waitlist.
+     *
+     * @param workoutClassId the class
+     * @param memberId       the member's user ID
+     * @return {@code true} if the member was waiting; {@code false} otherwise
+     */
+    public boolean leaveWaitlist(int workoutClassId, int memberId) {
+        String sql = "DELETE FROM class_waitlist WHERE workout_class_id = ? AND member_id = ?";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, workoutClassId);
+            stmt.setInt(2, memberId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error removing memberId=" + memberId + " from waitlist of class id " + workoutClassId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the members waiting for a class, first in line first.
+     *
+     * @param workoutClassId the class
+     * @return member IDs in waitlist order, or {@code null} if there was an error
+     */
+    public List<Integer> findWaitingMemberIds(int workoutClassId) {
+        String sql = "SELECT member_id FROM class_waitlist WHERE workout_class_id = ? ORDER BY waitlist_id";
+        List<Integer> memberIds = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, workoutClassId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    memberIds.add(rs.getInt("member_id"));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading waitlist of class id " + workoutClassId, e);
+            return null;
+        }
+        return memberIds;
+    }
+
+    /**
+     * Returns the IDs of upcoming classes that have anyone on their waitlist.
+     *
+     * @return class IDs (empty if there was an error)
+     */
+    public List<Integer> findClassIdsWithWaitlist() {
+        String sql = "SELECT DISTINCT w.workout_class_id FROM class_waitlist w " +
+                "JOIN workout_classes c ON c.workout_class_id = w.workout_class_id " +
+                "WHERE c.schedule_time > LOCALTIMESTAMP";
+        List<Integer> classIds = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                classIds.add(rs.getInt("workout_class_id"));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding classes with a waitlist", e);
+        }
+        return classIds;
+    }
+
+    /**
+     * Moves the first member in line from a class's waitlist into a booking, if the class has
+     * a free spot. Members who were deleted are passed over; members who somehow already hold
+     * a booking are taken off the list.
+     *
+     * @param workoutClassId the class
+     * @return the ID of the promoted member, or {@code null} if nobody was promoted (the
+     * waitlist is empty, the class is full or has started, or on error)
+     */
+    public Integer promoteNext(int workoutClassId) {
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    while (true) {
+                        long waitlistId;
+                        int memberId;
+                        try (PreparedStatement stmt = conn.prepareStatement(
+                                "SELECT w.waitlist_id, w.member_id FROM class_waitlist w " +
+                                        "JOIN users u ON u.user_id = w.member_id AND u.deleted_at IS NULL " +
+                                        "WHERE w.workout_class_id = ? ORDER BY w.waitlist_id LIMIT 1 " +
+                                        "FOR UPDATE OF w SKIP LOCKED")) {
+                            stmt.setInt(1, workoutClassId);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                if (!rs.next()) {
+                                    return null;
+                                }
+                                waitlistId = rs.getLong("waitlist_id");
+                                memberId = rs.getInt("member_id");
+                            }
+                        }
+
+                        try (PreparedStatement stmt = conn.prepareStatement(
+                                "DELETE FROM class_waitlist WHERE waitlist_id = ?")) {
+                            stmt.setLong(1, waitlistId);
+                            stmt.executeUpdate();
+                        }
+
+                        try (PreparedStatement stmt = conn.prepareStatement(
+                                "INSERT INTO class_bookings (workout_class_id, member_id) VALUES (?, ?) " +
+                                        "ON CONFLICT (workout_class_id, member_id) DO NOTHING")) {
+                            stmt.setInt(1, workoutClassId);
+                            stmt.setInt(2, memberId);
+                            if (stmt.executeUpdate() == 0) {
+                                continue;
+                            }
+                        }
+
+                        try (PreparedStatement stmt = conn.prepareStatement(
+                                "UPDATE workout_classes SET booked_count = booked_count + 1 " +
+                                        "WHERE workout_class_id = ? AND booked_count < capacity " +
+                                        "AND schedule_time > LOCALTIMESTAMP")) {
+                            stmt.setInt(1, workoutClassId);
+                            if (stmt.executeUpdate() == 0) {
+                                // No free spot after all: leave everything as it was
+                                UnitOfWork.setRollbackOnly();
+                                return null;
+                            }
+                        }
+                        return memberId;
+                    }
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not promote from waitlist of class " + workoutClassId, e);
+                }
+            });
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Error promoting from waitlist of class id " + workoutClassId, e);
+            return null;
+        }
+    }
+}
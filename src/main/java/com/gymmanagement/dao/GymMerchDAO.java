@@ -2,14 +2,18 @@ package com.gymmanagement.dao;
 
 import com.gymmanagement.model.GymMerch;
 import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
 import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.StreamingQuery;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) for managing {@link GymMerch} entities.
@@ -68,7 +72,7 @@ public class GymMerchDAO {
         String sql = "SELECT * FROM gym_merch ORDER BY merch_id";
         List<GymMerch> merchList = new ArrayList<>();
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -83,6 +87,30 @@ public class GymMerchDAO {
         return merchList;
     }
 
+    /**
+     * Streams all merch items, ordered by ID, fetching rows in batches as the stream is consumed.
+     * The stream holds a database connection, so close it (try-with-resources) when done.
+     *
+     * @return a stream of {@link GymMerch} objects
+     * @throws DataAccessException if the query fails
+     */
+    public Stream<GymMerch> streamAllMerch() {
+        String sql = "SELECT * FROM gym_merch ORDER BY merch_id";
+        return StreamingQuery.stream(sql, this::mapRowToMerch);
+    }
+
+    /**
+     * Passes every merch item to a consumer, one row at a time, in constant memory.
+     *
+     * @param consumer receives each {@link GymMerch}
+     * @return the number of rows processed
+     * @throws DataAccessException if the query fails
+     */
+    public long forEachMerch(Consumer<GymMerch> consumer) {
+        String sql = "SELECT * FROM gym_merch ORDER BY merch_id";
+        return StreamingQuery.forEach(sql, this::mapRowToMerch, consumer);
+    }
+
     /**
      * Calculates the total stock value of all merchandise.
      * This is computed as SUM(price * quantity).
@@ -92,7 +120,7 @@ public class GymMerchDAO {
     public BigDecimal getTotalStockValue() {
         String sql = "SELECT COALESCE(SUM(merch_price * quantity_in_stock), 0) AS total_value FROM gym_merch";
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
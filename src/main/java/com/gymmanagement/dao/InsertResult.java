@@ -0,0 +1,22 @@
+package com.gymmanagement.dao;
+
+/**
+ * Outcome of a conflict-aware insert, for DAO methods that need to tell
+ * "already exists" apart from a database error.
+ */
+public enum InsertResult {
+    /**
+     * The row was inserted.
+     */
+    CREATED,
+
+    /**
+     * Nothing was inserted because a row with the same unique key already exists.
+     */
+    DUPLICATE,
+
+    /**
+     * The insert failed because of a database error (see the log for details).
+     */
+    FAILED
+}
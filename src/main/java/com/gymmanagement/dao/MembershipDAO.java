@@ -2,15 +2,23 @@ package com.gymmanagement.dao;
 
 import com.gymmanagement.model.Membership;
 import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
 import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.StreamingQuery;
+import com.gymmanagement.util.UnitOfWork;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) for managing {@link Membership} entities.
@@ -22,6 +30,17 @@ public class MembershipDAO {
 
     private static final Logger LOGGER = LoggerUtil.getLogger();
 
+    // 6 parameters per row keeps a full chunk well below PostgreSQL's 32767 bind parameter limit
+    private static final int MAX_ROWS_PER_INSERT = 1_000;
+
+    // Hot queries; package-private so QueryPlanTest can check their plans
+    static final String SELECT_BY_MEMBER =
+            "SELECT * FROM memberships WHERE member_id = ? ORDER BY start_date DESC";
+    static final String SELECT_TOTAL_COST_BY_MEMBER =
+            "SELECT COALESCE(SUM(membership_cost), 0) AS total_cost FROM memberships WHERE member_id = ?";
+    static final String SELECT_END_DATE_CHUNK = "SELECT * FROM memberships WHERE end_date BETWEEN ? AND ? " +
+            "AND (end_date, membership_id) > (?, ?) ORDER BY end_date, membership_id LIMIT ?";
+
     /**
      * Inserts a new membership into the database.
      *
@@ -68,6 +87,88 @@ public class MembershipDAO {
         }
     }
 
+    /**
+     * Inserts many memberships using multi-row insert statements of up to
+     * {@value #MAX_ROWS_PER_INSERT} rows each, so a large batch costs a handful of round trips
+     * instead of one per membership. Either every membership is inserted or none is.
+     *
+     * @param memberships the memberships to create; their IDs are set on success
+     * @return the same memberships with generated IDs, or {@code null} if the insert failed
+     */
+    public List<Membership> createMemberships(List<Membership> memberships) {
+        if (memberships.isEmpty()) {
+            return memberships;
+        }
+        try {
+            UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    for (int from = 0; from < memberships.size(); from += MAX_ROWS_PER_INSERT) {
+                        insertChunk(conn, memberships.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, memberships.size())));
+                    }
+                    return null;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not insert " + memberships.size() + " memberships", e);
+                }
+            });
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Error creating " + memberships.size() + " memberships", e);
+            // IDs from chunks that were rolled back are meaningless
+            for (Membership membership : memberships) {
+                membership.setMembershipId(0);
+            }
+            return null;
+        }
+        LOGGER.info("Created " + memberships.size() + " memberships in one batch");
+        return memberships;
+    }
+
+    private void insertChunk(Connection conn, List<Membership> chunk) throws SQLException {
+        // RETURNING can only see the inserted columns, so each row's ID is drawn up front together
+        // with its position in the chunk, and the pairs are returned instead
+        StringBuilder sql = new StringBuilder("WITH input (row_no, membership_type, membership_description, " +
+                "membership_cost, member_id, start_date, end_date) AS (VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            // Dates are sent untyped, and VALUES would otherwise make them text
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?::date, ?::date)");
+        }
+        sql.append("), ids AS MATERIALIZED (" +
+                "SELECT row_no, nextval(pg_get_serial_sequence('memberships', 'membership_id')) AS membership_id " +
+                "FROM input), " +
+                "inserted AS (INSERT INTO memberships " +
+                "(membership_id, membership_type, membership_description, membership_cost, member_id, start_date, end_date) " +
+                "SELECT ids.membership_id, membership_type, membership_description, membership_cost, member_id, " +
+                "start_date, end_date FROM input JOIN ids USING (row_no)) " +
+                "SELECT row_no, membership_id FROM ids");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (int i = 0; i < chunk.size(); i++) {
+                Membership membership = chunk.get(i);
+                stmt.setInt(p++, i);
+                stmt.setString(p++, membership.getMembershipType());
+                stmt.setString(p++, membership.getMembershipDescription());
+                stmt.setBigDecimal(p++, membership.getMembershipCost());
+                stmt.setInt(p++, membership.getMemberId());
+                stmt.setDate(p++, Date.valueOf(membership.getStartDate()));
+                if (membership.getEndDate() != null) {
+                    stmt.setDate(p++, Date.valueOf(membership.getEndDate()));
+                } else {
+                    stmt.setNull(p++, Types.DATE);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                int count = 0;
+                while (rs.next()) {
+                    chunk.get(rs.getInt("row_no")).setMembershipId(rs.getInt("membership_id"));
+                    count++;
+                }
+                if (count != chunk.size()) {
+                    throw new SQLException("Expected " + chunk.size() + " generated IDs, got " + count);
+                }
+            }
+        }
+    }
+
     /**
      * Returns all memberships for a specific member, ordered by start date descending.
      *
@@ -75,10 +176,10 @@ public class MembershipDAO {
      * @return list of memberships for that member
      */
     public List<Membership> getMembershipsByMemberId(int memberId) {
-        String sql = "SELECT * FROM memberships WHERE member_id = ? ORDER BY start_date DESC";
+        String sql = SELECT_BY_MEMBER;
         List<Membership> memberships = new ArrayList<>();
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, memberId);
@@ -103,7 +204,7 @@ public class MembershipDAO {
         String sql = "SELECT * FROM memberships ORDER BY membership_id";
         List<Membership> memberships = new ArrayList<>();
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -117,15 +218,163 @@ public class MembershipDAO {
         return memberships;
     }
 
+    /**
+     * Streams all memberships, ordered by ID, fetching rows in batches as the stream is consumed.
+     * The stream holds a database connection, so close it (try-with-resources) when done.
+     *
+     * @return a stream of {@link Membership} objects
+     * @throws DataAccessException if the query fails
+     */
+    public Stream<Membership> streamAllMemberships() {
+        String sql = "SELECT * FROM memberships ORDER BY membership_id";
+        return StreamingQuery.stream(sql, this::mapRowToMembership);
+    }
+
+    /**
+     * Passes every membership to a consumer, one row at a time, in constant memory.
+     *
+     * @param consumer receives each {@link Membership}
+     * @return the number of rows processed
+     * @throws DataAccessException if the query fails
+     */
+    public long forEachMembership(Consumer<Membership> consumer) {
+        String sql = "SELECT * FROM memberships ORDER BY membership_id";
+        return StreamingQuery.forEach(sql, this::mapRowToMembership, consumer);
+    }
+
+    /**
+     * Returns the next chunk of memberships whose end date falls in a range, ordered by end date
+     * and ID. Pass the end date and ID of the last membership of the previous chunk to continue
+     * after it, or {@code null} and {@code 0} to start at the beginning of the range.
+     *
+     * @param from              first end date (inclusive)
+     * @param to                last end date (inclusive)
+     * @param afterEndDate      end date of the last membership already processed, or {@code null}
+     * @param afterMembershipId ID of the last membership already processed
+     * @param limit             maximum number of memberships to return
+     * @return up to {@code limit} memberships, or {@code null} if the query failed
+     */
+    public List<Membership> findByEndDateChunk(LocalDate from, LocalDate to, LocalDate afterEndDate,
+                                               int afterMembershipId, int limit) {
+        String sql = SELECT_END_DATE_CHUNK;
+        List<Membership> memberships = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            // Before the range start, every row in the range sorts after (from - 1 day, any ID)
+            stmt.setDate(3, Date.valueOf(afterEndDate != null ? afterEndDate : from.minusDays(1)));
+            stmt.setInt(4, afterMembershipId);
+            stmt.setInt(5, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    memberships.add(mapRowToMembership(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching memberships ending between " + from + " and " + to, e);
+            return null;
+        }
+        return memberships;
+    }
+
+    /**
+     * Calculates how much one member has spent on memberships, in the database.
+     *
+     * @param memberId the member's user ID
+     * @return sum of the member's membership costs, or {@link BigDecimal#ZERO} if none
+     */
+    public BigDecimal getTotalCostForMember(int memberId) {
+        String sql = SELECT_TOTAL_COST_BY_MEMBER;
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, memberId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getBigDecimal("total_cost");
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error calculating membership costs for member id: " + memberId, e);
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * Calculates how much each of the given members has spent on memberships, in one query.
+     *
+     * @param memberIds the members' user IDs
+     * @return total cost per member ID; members without memberships map to
+     * {@link BigDecimal#ZERO} (empty if there was an error)
+     */
+    public Map<Integer, BigDecimal> getTotalCostByMember(List<Integer> memberIds) {
+        String sql = "SELECT member_id, SUM(membership_cost) AS total_cost FROM memberships " +
+                "WHERE member_id = ANY(?) GROUP BY member_id";
+        Map<Integer, BigDecimal> totals = new HashMap<>();
+        if (memberIds.isEmpty()) {
+            return totals;
+        }
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("integer", memberIds.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getInt("member_id"), rs.getBigDecimal("total_cost"));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error calculating membership costs for " + memberIds.size() + " members", e);
+            return new HashMap<>();
+        }
+
+        for (Integer memberId : memberIds) {
+            totals.putIfAbsent(memberId, BigDecimal.ZERO);
+        }
+        return totals;
+    }
+
+    /**
+     * Calculates how much every member with at least one membership has spent, in one query.
+     *
+     * @return total cost per member ID (empty if there was an error)
+     */
+    public Map<Integer, BigDecimal> getTotalCostForAllMembers() {
+        String sql = "SELECT member_id, SUM(membership_cost) AS total_cost FROM memberships GROUP BY member_id";
+        Map<Integer, BigDecimal> totals = new HashMap<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                totals.put(rs.getInt("member_id"), rs.getBigDecimal("total_cost"));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error calculating membership costs for all members", e);
+            return new HashMap<>();
+        }
+        return totals;
+    }
+
     /**
      * Calculates the total revenue from all memberships.
+     * <p>
+     * Reads the per-type running totals in {@code revenue_totals}, which a database trigger
+     * updates with every membership insert, update and delete, instead of summing the
+     * whole memberships table.
      *
      * @return sum of all membership costs, or {@link BigDecimal#ZERO} if none
      */
     public BigDecimal getTotalRevenue() {
-        String sql = "SELECT COALESCE(SUM(membership_cost), 0) AS total_revenue FROM memberships";
+        String sql = "SELECT COALESCE(SUM(total_revenue), 0) AS total_revenue FROM revenue_totals";
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -138,6 +387,122 @@ public class MembershipDAO {
         return BigDecimal.ZERO;
     }
 
+    /**
+     * Returns the revenue per membership type, from the maintained running totals.
+     *
+     * @return revenue keyed by membership type, in alphabetical order (empty if there was an error)
+     */
+    public Map<String, BigDecimal> getRevenueByType() {
+        String sql = "SELECT membership_type, total_revenue FROM revenue_totals " +
+                "WHERE membership_count > 0 ORDER BY membership_type";
+        Map<String, BigDecimal> revenue = new LinkedHashMap<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                revenue.put(rs.getString("membership_type"), rs.getBigDecimal("total_revenue"));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching revenue by membership type", e);
+        }
+        return revenue;
+    }
+
+    /**
+     * Recomputes revenue per membership type from the memberships table and compares it with
+     * the maintained running totals. This scans the whole table, so it is meant for occasional
+     * consistency checks, not for the revenue screen.
+     *
+     * @return the membership types whose totals differ (empty if consistent), or {@code null}
+     * if there was an error
+     */
+    public List<RevenueDrift> findRevenueDrift() {
+        String sql = "SELECT COALESCE(a.membership_type, t.membership_type) AS membership_type, " +
+                "COALESCE(t.total_revenue, 0) AS stored_revenue, COALESCE(a.total_revenue, 0) AS actual_revenue, " +
+                "COALESCE(t.membership_count, 0) AS stored_count, COALESCE(a.membership_count, 0) AS actual_count " +
+                "FROM (SELECT membership_type, SUM(membership_cost) AS total_revenue, COUNT(*) AS membership_count " +
+                "      FROM memberships GROUP BY membership_type) a " +
+                "FULL JOIN revenue_totals t ON t.membership_type = a.membership_type " +
+                "WHERE COALESCE(t.total_revenue, 0) <> COALESCE(a.total_revenue, 0) " +
+                "   OR COALESCE(t.membership_count, 0) <> COALESCE(a.membership_count, 0) " +
+                "ORDER BY 1";
+        List<RevenueDrift> drift = new ArrayList<>();
+
+        // Run on the primary: comparing against a lagging replica would report false drift
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                drift.add(new RevenueDrift(
+                        rs.getString("membership_type"),
+                        rs.getBigDecimal("stored_revenue"),
+                        rs.getBigDecimal("actual_revenue"),
+                        rs.getLong("stored_count"),
+                        rs.getLong("actual_count")));
+            }
+            return drift;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking revenue totals", e);
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds the running revenue totals from the memberships table. New memberships are
+     * blocked (not lost) while the rebuild runs, so the result is exact.
+     *
+     * @return {@code true} if the totals were rebuilt; {@code false} otherwise
+     */
+    public boolean rebuildRevenueTotals() {
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     Statement stmt = conn.createStatement()) {
+                    stmt.execute("LOCK TABLE memberships IN SHARE ROW EXCLUSIVE MODE");
+                    stmt.executeUpdate("DELETE FROM revenue_totals");
+                    stmt.executeUpdate("INSERT INTO revenue_totals (membership_type, total_revenue, membership_count) " +
+                            "SELECT membership_type, SUM(membership_cost), COUNT(*) FROM memberships " +
+                            "GROUP BY membership_type");
+                    LOGGER.info("Rebuilt revenue totals from memberships");
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not rebuild revenue totals", e);
+                }
+            });
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Error rebuilding revenue totals", e);
+            return false;
+        }
+    }
+
+    /**
+     * Deletes up to {@code batchSize} memberships of one member, in a short statement of its own.
+     * Used to purge a deleted member's memberships a little at a time.
+     *
+     * @param memberId  the member's user ID
+     * @param batchSize maximum number of rows to delete
+     * @return the number of rows deleted, or {@code -1} if there was an error
+     */
+    public int deleteMembershipsForMemberBatch(int memberId, int batchSize) {
+        String sql = "DELETE FROM memberships WHERE membership_id IN " +
+                "(SELECT membership_id FROM memberships WHERE member_id = ? LIMIT ?)";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, memberId);
+            stmt.setInt(2, batchSize);
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error deleting memberships for member id: " + memberId, e);
+            return -1;
+        }
+    }
+
     /**
      * Maps a result set row to a {@link Membership} object.
      *
@@ -0,0 +1,48 @@
+package com.gymmanagement.dao;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * Revenue from one membership type in one calendar month (by membership start date).
+ */
+public class MonthlyRevenue {
+
+    private final YearMonth month;
+    private final String membershipType;
+    private final BigDecimal totalRevenue;
+    private final long membershipCount;
+
+    public MonthlyRevenue(YearMonth month, String membershipType, BigDecimal totalRevenue, long membershipCount) {
+        this.month = month;
+        this.membershipType = membershipType;
+        this.totalRevenue = totalRevenue;
+        this.membershipCount = membershipCount;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public String getMembershipType() {
+        return membershipType;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public long getMembershipCount() {
+        return membershipCount;
+    }
+
+    @Override
+    public String toString() {
+        return "MonthlyRevenue{" +
+                "month=" + month +
+                ", membershipType='" + membershipType + '\'' +
+                ", totalRevenue=" + totalRevenue +
+                ", membershipCount=" + membershipCount +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.gymmanagement.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of results from a keyset-paginated query.
+ * <p>
+ * Instead of an offset, the next page is requested with the key of the last row on this page
+ * ({@link #getNextKey()}), so every page costs the same no matter how deep into the table it is.
+ *
+ * @param <T> row type
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final Integer nextKey;
+
+    public Page(List<T> items, Integer nextKey) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextKey = nextKey;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the continuation key to pass when asking for the following page.
+     *
+     * @return the key of the last row on this page, or {@code null} if this is the last page
+     */
+    public Integer getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+}
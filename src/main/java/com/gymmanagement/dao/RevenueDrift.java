@@ -0,0 +1,51 @@
+package com.gymmanagement.dao;
+
+import java.math.BigDecimal;
+
+/**
+ * A membership type whose stored revenue total no longer matches the memberships table.
+ */
+public class RevenueDrift {
+
+    private final String membershipType;
+    private final BigDecimal storedRevenue;
+    private final BigDecimal actualRevenue;
+    private final long storedCount;
+    private final long actualCount;
+
+    public RevenueDrift(String membershipType, BigDecimal storedRevenue, BigDecimal actualRevenue,
+                        long storedCount, long actualCount) {
+        this.membershipType = membershipType;
+        this.storedRevenue = storedRevenue;
+        this.actualRevenue = actualRevenue;
+        this.storedCount = storedCount;
+        this.actualCount = actualCount;
+    }
+
+    public String getMembershipType() {
+        return membershipType;
+    }
+
+    public BigDecimal getStoredRevenue() {
+        return storedRevenue;
+    }
+
+    public BigDecimal getActualRevenue() {
+        return actualRevenue;
+    }
+
+    public long getStoredCount() {
+        return storedCount;
+    }
+
+    public long getActualCount() {
+        return actualCount;
+    }
+
+    @Override
+    public String toString() {
+        return membershipType +
+                ": stored $" + storedRevenue + " (" + storedCount + " memberships)" +
+                ", actual $" + actualRevenue + " (" + actualCount + " memberships)";
+    }
+}
@@ -0,0 +1,194 @@
+package com.gymmanagement.dao;
+
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.UnitOfWork;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Data Access Object (DAO) for monthly revenue figures.
+ * <p>
+ * Closed months are summarised once into {@code revenue_monthly} and marked in
+ * {@code revenue_monthly_status}. A database trigger removes the mark when a membership that
+ * started in that month is added, changed or deleted, so a marked month is always up to date.
+ */
+public class RevenueRollupDAO {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    /**
+     * Returns the month of the earliest membership start date.
+     *
+     * @return the first month with revenue, or {@code null} if there are no memberships or on error
+     */
+    public YearMonth findFirstMembershipMonth() {
+        String sql = "SELECT MIN(start_date) AS first_start FROM memberships";
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            if (rs.next() && rs.getDate("first_start") != null) {
+                return YearMonth.from(rs.getDate("first_start").toLocalDate());
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding first membership month", e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns which months in a range have an up-to-date rollup.
+     *
+     * @param from first month (inclusive)
+     * @param to   last month (inclusive)
+     * @return the rolled-up months (empty if there was an error)
+     */
+    public Set<YearMonth> findRolledUpMonths(YearMonth from, YearMonth to) {
+        String sql = "SELECT month FROM revenue_monthly_status WHERE month BETWEEN ? AND ?";
+        Set<YearMonth> months = new HashSet<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(from.atDay(1)));
+            stmt.setDate(2, Date.valueOf(to.atDay(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    months.add(YearMonth.from(rs.getDate("month").toLocalDate()));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading revenue rollup status", e);
+        }
+        return months;
+    }
+
+    /**
+     * Returns the stored revenue of every rolled-up month in a range.
+     *
+     * @param from first month (inclusive)
+     * @param to   last month (inclusive)
+     * @return revenue per month and membership type, ordered by month and type
+     */
+    public List<MonthlyRevenue> getRolledUpRevenue(YearMonth from, YearMonth to) {
+        String sql = "SELECT r.month, r.membership_type, r.total_revenue, r.membership_count " +
+                "FROM revenue_monthly r JOIN revenue_monthly_status s ON s.month = r.month " +
+                "WHERE r.month BETWEEN ? AND ? ORDER BY r.month, r.membership_type";
+        List<MonthlyRevenue> revenue = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(from.atDay(1)));
+            stmt.setDate(2, Date.valueOf(to.atDay(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    revenue.add(mapRowToMonthlyRevenue(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading rolled-up revenue", e);
+        }
+        return revenue;
+    }
+
+    /**
+     * Computes revenue per month and membership type directly from the memberships table.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (exclusive)
+     * @return revenue per month and membership type, ordered by month and type
+     * (empty if there was an error)
+     */
+    public List<MonthlyRevenue> computeRevenue(LocalDate from, LocalDate to) {
+        String sql = "SELECT date_trunc('month', start_date)::date AS month, membership_type, " +
+                "SUM(membership_cost) AS total_revenue, COUNT(*) AS membership_count " +
+                "FROM memberships WHERE start_date >= ? AND start_date < ? " +
+                "GROUP BY 1, 2 ORDER BY 1, 2";
+        List<MonthlyRevenue> revenue = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    revenue.add(mapRowToMonthlyRevenue(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error computing revenue from " + from + " to " + to, e);
+        }
+        return revenue;
+    }
+
+    /**
+     * Recomputes one closed month from the memberships table and marks it as rolled up.
+     * <p>
+     * The status table is locked for the duration, so a backdated membership written
+     * concurrently either is included or clears the mark again once this commits.
+     *
+     * @param month the month to roll up; must be before the current month
+     * @return {@code true} if the month was rolled up; {@code false} otherwise
+     */
+    public boolean rollUpMonth(YearMonth month) {
+        Date start = Date.valueOf(month.atDay(1));
+        Date end = Date.valueOf(month.plusMonths(1).atDay(1));
+
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("LOCK TABLE revenue_monthly_status IN SHARE ROW EXCLUSIVE MODE");
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "DELETE FROM revenue_monthly WHERE month = ?")) {
+                        stmt.setDate(1, start);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "INSERT INTO revenue_monthly (month, membership_type, total_revenue, membership_count) " +
+                                    "SELECT ?, membership_type, SUM(membership_cost), COUNT(*) FROM memberships " +
+                                    "WHERE start_date >= ? AND start_date < ? GROUP BY membership_type")) {
+                        stmt.setDate(1, start);
+                        stmt.setDate(2, start);
+                        stmt.setDate(3, end);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "INSERT INTO revenue_monthly_status (month) VALUES (?) " +
+                                    "ON CONFLICT (month) DO UPDATE SET rolled_up_at = now()")) {
+                        stmt.setDate(1, start);
+                        stmt.executeUpdate();
+                    }
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not roll up revenue for " + month, e);
+                }
+            });
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Error rolling up revenue for " + month, e);
+            return false;
+        }
+    }
+
+    private MonthlyRevenue mapRowToMonthlyRevenue(ResultSet rs) throws SQLException {
+        return new MonthlyRevenue(
+                YearMonth.from(rs.getDate("month").toLocalDate()),
+                rs.getString("membership_type"),
+                rs.getBigDecimal("total_revenue"),
+                rs.getLong("membership_count"));
+    }
+}
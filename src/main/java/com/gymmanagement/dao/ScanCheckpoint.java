@@ -0,0 +1,71 @@
+package com.gymmanagement.dao;
+
+import java.time.LocalDate;
+
+/**
+ * Saved progress of a named, resumable scan over memberships ordered by end date and ID.
+ */
+public class ScanCheckpoint {
+
+    private final String scanName;
+    private final LocalDate rangeFrom;
+    private final LocalDate rangeTo;
+    private final LocalDate lastEndDate;
+    private final int lastMembershipId;
+    private final long processedCount;
+    private final boolean completed;
+
+    public ScanCheckpoint(String scanName, LocalDate rangeFrom, LocalDate rangeTo, LocalDate lastEndDate,
+                          int lastMembershipId, long processedCount, boolean completed) {
+        this.scanName = scanName;
+        this.rangeFrom = rangeFrom;
+        this.rangeTo = rangeTo;
+        this.lastEndDate = lastEndDate;
+        this.lastMembershipId = lastMembershipId;
+        this.processedCount = processedCount;
+        this.completed = completed;
+    }
+
+    public String getScanName() {
+        return scanName;
+    }
+
+    public LocalDate getRangeFrom() {
+        return rangeFrom;
+    }
+
+    public LocalDate getRangeTo() {
+        return rangeTo;
+    }
+
+    /**
+     * @return end date of the last processed membership, or {@code null} if none was processed yet
+     */
+    public LocalDate getLastEndDate() {
+        return lastEndDate;
+    }
+
+    public int getLastMembershipId() {
+        return lastMembershipId;
+    }
+
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanCheckpoint{" +
+                "scanName='" + scanName + '\'' +
+                ", range=" + rangeFrom + ".." + rangeTo +
+                ", lastEndDate=" + lastEndDate +
+                ", lastMembershipId=" + lastMembershipId +
+                ", processedCount=" + processedCount +
+                ", completed=" + completed +
+                '}';
+    }
+}
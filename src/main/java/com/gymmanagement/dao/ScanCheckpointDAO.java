@@ -0,0 +1,87 @@
+package com.gymmanagement.dao;
+
+import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.sql.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Data Access Object (DAO) for the {@code scan_checkpoints} table, which stores how far each
+ * named background scan has progressed.
+ */
+public class ScanCheckpointDAO {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    /**
+     * Returns the saved progress of a scan.
+     *
+     * @param scanName the scan's name
+     * @return the checkpoint, or {@code null} if the scan has none or on error
+     */
+    public ScanCheckpoint findByName(String scanName) {
+        String sql = "SELECT * FROM scan_checkpoints WHERE scan_name = ?";
+
+        // Always the primary: the checkpoint must reflect the last chunk this process saved
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, scanName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Date lastEndDate = rs.getDate("last_end_date");
+                    return new ScanCheckpoint(
+                            rs.getString("scan_name"),
+                            rs.getDate("range_from").toLocalDate(),
+                            rs.getDate("range_to").toLocalDate(),
+                            lastEndDate != null ? lastEndDate.toLocalDate() : null,
+                            rs.getInt("last_membership_id"),
+                            rs.getLong("processed_count"),
+                            rs.getTimestamp("completed_at") != null);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading checkpoint for scan: " + scanName, e);
+        }
+        return null;
+    }
+
+    /**
+     * Inserts or replaces the saved progress of a scan.
+     *
+     * @param checkpoint the progress to save
+     * @return {@code true} if saved; {@code false} otherwise
+     */
+    public boolean save(ScanCheckpoint checkpoint) {
+        String sql = "INSERT INTO scan_checkpoints " +
+                "(scan_name, range_from, range_to, last_end_date, last_membership_id, processed_count, completed_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, CASE WHEN ? THEN now() END, now()) " +
+                "ON CONFLICT (scan_name) DO UPDATE SET range_from = EXCLUDED.range_from, range_to = EXCLUDED.range_to, " +
+                "last_end_date = EXCLUDED.last_end_date, last_membership_id = EXCLUDED.last_membership_id, " +
+                "processed_count = EXCLUDED.processed_count, completed_at = EXCLUDED.completed_at, " +
+                "updated_at = EXCLUDED.updated_at";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, checkpoint.getScanName());
+            stmt.setDate(2, Date.valueOf(checkpoint.getRangeFrom()));
+            stmt.setDate(3, Date.valueOf(checkpoint.getRangeTo()));
+            if (checkpoint.getLastEndDate() != null) {
+                stmt.setDate(4, Date.valueOf(checkpoint.getLastEndDate()));
+                stmt.setInt(5, checkpoint.getLastMembershipId());
+            } else {
+                stmt.setNull(4, Types.DATE);
+                stmt.setNull(5, Types.INTEGER);
+            }
+            stmt.setLong(6, checkpoint.getProcessedCount());
+            stmt.setBoolean(7, checkpoint.isCompleted());
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error saving checkpoint for scan: " + checkpoint.getScanName(), e);
+            return false;
+        }
+    }
+}
@@ -5,24 +5,67 @@ import com.gymmanagement.model.Member;
 import com.gymmanagement.model.Trainer;
 import com.gymmanagement.model.User;
 import com.gymmanagement.model.UserRole;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.BoundedCache;
+import com.gymmanagement.util.CacheStats;
 import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
 import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.StreamingQuery;
+import com.gymmanagement.util.UnitOfWork;
+import org.postgresql.PGConnection;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) for managing {@link User} entities in the database.
  * <p>
  * This class provides methods for creating, querying, and deleting users.
+ * <p>
+ * Lookups by username (every login) go through a shared, bounded cache. The cache is
+ * invalidated whenever a user is created or deleted through this class.
+ * <p>
+ * Deleting a user only marks the row ({@code deleted_at}); every query here ignores marked
+ * users, and {@code UserPurgeJob} removes them and their dependent rows later in small batches.
  */
 public class UserDAO {
 
     private static final Logger LOGGER = LoggerUtil.getLogger();
 
+    // Hot queries; package-private so QueryPlanTest can check their plans
+    static final String SELECT_BY_ROLE =
+            "SELECT * FROM users WHERE role = ? AND deleted_at IS NULL ORDER BY user_id";
+    static final String SELECT_PAGE_BY_ROLE =
+            "SELECT * FROM users WHERE role = ? AND user_id > ? AND deleted_at IS NULL ORDER BY user_id LIMIT ?";
+
+    // Shared by all UserDAO instances so every service sees the same cached users
+    private static final BoundedCache<String, User> USERNAME_CACHE = new BoundedCache<>("usersByUsername",
+            AppConfig.getInt("gym.cache.users.maxSize", 1_000),
+            AppConfig.getLong("gym.cache.users.ttlMs", 300_000L),
+            AppConfig.getLong("gym.cache.users.negativeTtlMs", 5_000L));
+
+    /**
+     * Returns a snapshot of the username cache counters (hits, misses, evictions).
+     *
+     * @return current {@link CacheStats}
+     */
+    public static CacheStats getUsernameCacheStats() {
+        return USERNAME_CACHE.getStats();
+    }
+
     /**
      * Inserts a new user into the database.
      *
@@ -54,6 +97,7 @@ public class UserDAO {
                     user.setUserId(generatedId);
                 }
             }
+            USERNAME_CACHE.invalidate(user.getUsername());
 
             LOGGER.info("Created user: " + user.getUsername() + " with role " + user.getRole());
             return user;
@@ -65,13 +109,193 @@ public class UserDAO {
     }
 
     /**
-     * Finds a user by their username.
+     * Inserts a new user unless the username is already taken, in a single statement.
+     * <p>
+     * Uses {@code INSERT ... ON CONFLICT (username) DO NOTHING RETURNING user_id}, so the
+     * uniqueness check and the insert happen atomically in one round trip and two concurrent
+     * registrations for the same name cannot both succeed.
+     *
+     * @param user the {@link User} to create; its ID is set when the insert succeeds
+     * @return {@link InsertResult#CREATED}, {@link InsertResult#DUPLICATE} if the username
+     * is taken, or {@link InsertResult#FAILED} on a database error
+     */
+    public InsertResult createUserIfUsernameAvailable(User user) {
+        String sql = "INSERT INTO users (username, password_hash, email, phone_number, address, role) " +
+                "VALUES (?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT (username) DO NOTHING " +
+                "RETURNING user_id";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, user.getUsername());
+            stmt.setString(2, user.getPasswordHash());
+            stmt.setString(3, user.getEmail());
+            stmt.setString(4, user.getPhoneNumber());
+            stmt.setString(5, user.getAddress());
+            stmt.setString(6, user.getRole().name());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return InsertResult.DUPLICATE;
+                }
+                user.setUserId(rs.getInt("user_id"));
+            }
+            USERNAME_CACHE.invalidate(user.getUsername());
+
+            LOGGER.info("Created user: " + user.getUsername() + " with role " + user.getRole());
+            return InsertResult.CREATED;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error creating user in the database", e);
+            return InsertResult.FAILED;
+        }
+    }
+
+    /**
+     * Inserts many users at once, skipping any whose username is already taken.
+     * <p>
+     * The rows are streamed into a temporary staging table with PostgreSQL {@code COPY}
+     * (or a JDBC batch if the driver does not support it) and then moved into {@code users}
+     * with one {@code INSERT ... SELECT ... ON CONFLICT (username) DO NOTHING}, all in a single
+     * transaction. Usernames within {@code users} should already be distinct.
+     *
+     * @param users the users to create; the IDs of those that are inserted are set
+     * @return the users that were inserted (the rest already existed), or {@code null} if the
+     * whole batch failed and nothing was inserted
+     */
+    public List<User> createUsersIgnoringDuplicates(List<User> users) {
+        if (users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            List<User> created = UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DBConnection.getConnection()) {
+                    return copyAndInsertUsers(conn, users);
+                } catch (SQLException | IOException e) {
+                    throw new DataAccessException("Bulk user insert failed", e);
+                }
+            });
+            for (User user : created) {
+                USERNAME_CACHE.invalidate(user.getUsername());
+            }
+            LOGGER.info("Bulk insert created " + created.size() + " of " + users.size() + " users");
+            return created;
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Error bulk inserting " + users.size() + " users", e);
+            return null;
+        }
+    }
+
+    private List<User> copyAndInsertUsers(Connection conn, List<User> users) throws SQLException, IOException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TEMP TABLE user_import_staging (" +
+                    "row_no INT NOT NULL, username VARCHAR(50), password_hash VARCHAR(100), email VARCHAR(100), " +
+                    "phone_number VARCHAR(20), address VARCHAR(255), role VARCHAR(20)) ON COMMIT DROP");
+        }
+
+        if (conn.isWrapperFor(PGConnection.class)) {
+            StringBuilder csv = new StringBuilder(users.size() * 160);
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                csv.append(i).append(',');
+                appendCsvField(csv, user.getUsername()).append(',');
+                appendCsvField(csv, user.getPasswordHash()).append(',');
+                appendCsvField(csv, user.getEmail()).append(',');
+                appendCsvField(csv, user.getPhoneNumber()).append(',');
+                appendCsvField(csv, user.getAddress()).append(',');
+                appendCsvField(csv, user.getRole().name()).append('\n');
+            }
+            conn.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "COPY user_import_staging (row_no, username, password_hash, email, phone_number, address, role) " +
+                            "FROM STDIN WITH (FORMAT csv)",
+                    new StringReader(csv.toString()));
+        } else {
+            String sql = "INSERT INTO user_import_staging " +
+                    "(row_no, username, password_hash, email, phone_number, address, role) VALUES (?, ?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < users.size(); i++) {
+                    User user = users.get(i);
+                    stmt.setInt(1, i);
+                    stmt.setString(2, user.getUsername());
+                    stmt.setString(3, user.getPasswordHash());
+                    stmt.setString(4, user.getEmail());
+                    stmt.setString(5, user.getPhoneNumber());
+                    stmt.setString(6, user.getAddress());
+                    stmt.setString(7, user.getRole().name());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+
+        String sql = "INSERT INTO users (username, password_hash, email, phone_number, address, role) " +
+                "SELECT username, password_hash, email, phone_number, address, role " +
+                "FROM user_import_staging ORDER BY row_no " +
+                "ON CONFLICT (username) DO NOTHING " +
+                "RETURNING user_id, username";
+
+        Map<String, User> byUsername = new HashMap<>();
+        for (User user : users) {
+            byUsername.put(user.getUsername(), user);
+        }
+        List<User> created = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                User user = byUsername.get(rs.getString("username"));
+                user.setUserId(rs.getInt("user_id"));
+                created.add(user);
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE user_import_staging");
+        }
+        return created;
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder csv, String value) {
+        if (value == null) {
+            // An unquoted empty field is NULL in COPY's CSV format
+            return csv;
+        }
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Finds a user by their username. Results (including "not found") are served from the
+     * username cache when possible; inside a transaction the database is always queried.
      *
      * @param username the username to search for
-     * @return the matching {@link User}, or {@code null} if none exists
+     * @return the matching {@link User}, or {@code null} if none exists or on error
      */
     public User findByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
+        if (username == null) {
+            return null;
+        }
+        try {
+            if (UnitOfWork.isActive()) {
+                // Don't cache rows the transaction may still roll back
+                return loadByUsername(username);
+            }
+            return USERNAME_CACHE.get(username, this::loadByUsername);
+        } catch (DataAccessException e) {
+            // Not cached, so the user is found again as soon as the database recovers
+            LOGGER.log(Level.SEVERE, "Error finding user by username: " + username, e);
+            return null;
+        }
+    }
+
+    /**
+     * Queries the database for a user by username, bypassing the cache.
+     *
+     * @param username the username to search for
+     * @return the matching {@link User}, or {@code null} if none exists
+     * @throws DataAccessException if the query failed
+     */
+    private User loadByUsername(String username) {
+        String sql = "SELECT * FROM users WHERE username = ? AND deleted_at IS NULL";
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -82,7 +306,7 @@ public class UserDAO {
                 }
             }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding user by username: " + username, e);
+            throw new DataAccessException("Could not look up user " + username, e);
         }
         return null;
     }
@@ -93,10 +317,10 @@ public class UserDAO {
      * @return list of all users
      */
     public List<User> findAll() {
-        String sql = "SELECT * FROM users ORDER BY user_id";
+        String sql = "SELECT * FROM users WHERE deleted_at IS NULL ORDER BY user_id";
         List<User> users = new ArrayList<>();
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -110,6 +334,30 @@ public class UserDAO {
         return users;
     }
 
+    /**
+     * Streams all users, ordered by ID, fetching rows in batches as the stream is consumed.
+     * The stream holds a database connection, so close it (try-with-resources) when done.
+     *
+     * @return a stream of {@link User} objects
+     * @throws DataAccessException if the query fails
+     */
+    public Stream<User> streamAll() {
+        String sql = "SELECT * FROM users WHERE deleted_at IS NULL ORDER BY user_id";
+        return StreamingQuery.stream(sql, this::mapRowToUser);
+    }
+
+    /**
+     * Passes every user to a consumer, one row at a time, in constant memory.
+     *
+     * @param consumer receives each {@link User}
+     * @return the number of rows processed
+     * @throws DataAccessException if the query fails
+     */
+    public long forEachUser(Consumer<User> consumer) {
+        String sql = "SELECT * FROM users WHERE deleted_at IS NULL ORDER BY user_id";
+        return StreamingQuery.forEach(sql, this::mapRowToUser, consumer);
+    }
+
     /**
      * Returns all users that have a specific role.
      *
@@ -117,10 +365,10 @@ public class UserDAO {
      * @return list of users with the given role
      */
     public List<User> findByRole(UserRole role) {
-        String sql = "SELECT * FROM users WHERE role = ? ORDER BY user_id";
+        String sql = SELECT_BY_ROLE;
         List<User> users = new ArrayList<>();
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, role.name());
@@ -137,20 +385,118 @@ public class UserDAO {
     }
 
     /**
-     * Deletes a user from the database based on their ID.
+     * Returns one page of users ordered by ID, starting after the given ID.
+     * <p>
+     * Uses keyset pagination ({@code WHERE user_id > ? ORDER BY user_id LIMIT ?}), which reads
+     * only the rows on the page via the primary key index.
+     *
+     * @param afterUserId continuation key from the previous page, or {@code 0} for the first page
+     * @param pageSize    maximum number of users on the page
+     * @return the page of users (empty if there was an error)
+     */
+    public Page<User> findPage(int afterUserId, int pageSize) {
+        String sql = "SELECT * FROM users WHERE user_id > ? AND deleted_at IS NULL ORDER BY user_id LIMIT ?";
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, afterUserId);
+            stmt.setInt(2, pageSize + 1);
+            return readPage(stmt, pageSize);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving users after id: " + afterUserId, e);
+            return new Page<>(new ArrayList<>(), null);
+        }
+    }
+
+    /**
+     * Returns one page of users with a specific role, ordered by ID, starting after the given ID.
+     *
+     * @param role        the {@link UserRole} to filter by
+     * @param afterUserId continuation key from the previous page, or {@code 0} for the first page
+     * @param pageSize    maximum number of users on the page
+     * @return the page of users (empty if there was an error)
+     */
+    public Page<User> findByRolePage(UserRole role, int afterUserId, int pageSize) {
+        String sql = SELECT_PAGE_BY_ROLE;
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, role.name());
+            stmt.setInt(2, afterUserId);
+            stmt.setInt(3, pageSize + 1);
+            return readPage(stmt, pageSize);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving users by role: " + role + " after id: " + afterUserId, e);
+            return new Page<>(new ArrayList<>(), null);
+        }
+    }
+
+    /**
+     * Runs a query that asks for one row more than the page size; the extra row only
+     * tells us whether another page follows.
+     */
+    private Page<User> readPage(PreparedStatement stmt, int pageSize) throws SQLException {
+        List<User> users = new ArrayList<>(pageSize);
+        boolean more = false;
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                if (users.size() == pageSize) {
+                    more = true;
+                    break;
+                }
+                users.add(mapRowToUser(rs));
+            }
+        }
+        Integer nextKey = more ? users.get(users.size() - 1).getUserId() : null;
+        return new Page<>(users, nextKey);
+    }
+
+    /**
+     * Replaces a user's password hash, but only if it still has the value the caller read.
+     * Used to upgrade hashes to a new BCrypt cost without overwriting a concurrent change.
+     *
+     * @param user    the user whose hash to replace; {@link User#getPasswordHash()} is the expected old hash
+     * @param newHash the new BCrypt hash
+     * @return {@code true} if the hash was updated; {@code false} otherwise
+     */
+    public boolean updatePasswordHash(User user, String newHash) {
+        String sql = "UPDATE users SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, newHash);
+            stmt.setInt(2, user.getUserId());
+            stmt.setString(3, user.getPasswordHash());
+            int rows = stmt.executeUpdate();
+            USERNAME_CACHE.invalidate(user.getUsername());
+            return rows > 0;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating password hash for user id: " + user.getUserId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Soft-deletes a user: the user disappears from every query in this class immediately,
+     * while the row itself and the user's memberships and classes are removed later by the
+     * background purge.
      *
      * @param userId the ID of the user to delete
-     * @return {@code true} if a user was deleted; {@code false} otherwise
+     * @return {@code true} if a user was marked as deleted; {@code false} otherwise
      */
     public boolean deleteUserById(int userId) {
-        String sql = "DELETE FROM users WHERE user_id = ?";
+        String sql = "UPDATE users SET deleted_at = now() WHERE user_id = ? AND deleted_at IS NULL";
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
             int rowsDeleted = stmt.executeUpdate();
+            USERNAME_CACHE.invalidateIf((username, user) -> user != null && user.getUserId() == userId);
             if (rowsDeleted > 0) {
-                LOGGER.info("Deleted user with id: " + userId);
+                LOGGER.info("Marked user with id " + userId + " as deleted");
                 return true;
             }
         } catch (SQLException e) {
@@ -159,6 +505,82 @@ public class UserDAO {
         return false;
     }
 
+    /**
+     * Returns which of the given IDs belong to existing users that have not been deleted,
+     * in one query.
+     *
+     * @param userIds the IDs to check
+     * @return the IDs that exist, or {@code null} if there was an error
+     */
+    public Set<Integer> findExistingUserIds(Collection<Integer> userIds) {
+        String sql = "SELECT user_id FROM users WHERE user_id = ANY(?) AND deleted_at IS NULL";
+        Set<Integer> ids = new HashSet<>();
+        if (userIds.isEmpty()) {
+            return ids;
+        }
+
+        // Primary, so that users registered a moment ago are found
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("integer", userIds.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt("user_id"));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking " + userIds.size() + " user IDs", e);
+            return null;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the IDs of soft-deleted users that still have to be purged, oldest deletion first.
+     *
+     * @param limit maximum number of IDs to return
+     * @return user IDs awaiting purge (empty if there was an error)
+     */
+    public List<Integer> findUserIdsPendingPurge(int limit) {
+        String sql = "SELECT user_id FROM users WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT ?";
+        List<Integer> ids = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt("user_id"));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding users pending purge", e);
+        }
+        return ids;
+    }
+
+    /**
+     * Permanently removes a soft-deleted user row. Dependent rows should already have been
+     * removed in batches; any that remain are removed by the foreign key cascades.
+     *
+     * @param userId the ID of a soft-deleted user
+     * @return {@code true} if the row was removed; {@code false} otherwise
+     */
+    public boolean purgeDeletedUser(int userId) {
+        String sql = "DELETE FROM users WHERE user_id = ? AND deleted_at IS NOT NULL";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error purging user with id: " + userId, e);
+            return false;
+        }
+    }
+
     /**
      * Maps a single result set row to an appropriate {@link User} subclass
      * based on the value of the {@code role} column.
@@ -2,14 +2,18 @@ package com.gymmanagement.dao;
 
 import com.gymmanagement.model.WorkoutClass;
 import com.gymmanagement.util.DBConnection;
+import com.gymmanagement.util.DataAccessException;
 import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.StreamingQuery;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) for managing {@link WorkoutClass} entities.
@@ -21,16 +25,30 @@ public class WorkoutClassDAO {
 
     private static final Logger LOGGER = LoggerUtil.getLogger();
 
+    /** SQLSTATE of a violated exclusion constraint, here: overlapping classes of one trainer. */
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    // Hot queries; package-private so QueryPlanTest can check their plans
+    static final String SELECT_ALL_BY_SCHEDULE = "SELECT * FROM workout_classes ORDER BY schedule_time";
+    static final String SELECT_BY_TRAINER =
+            "SELECT * FROM workout_classes WHERE trainer_id = ? ORDER BY schedule_time";
+    static final String SELECT_SCHEDULED_BETWEEN =
+            "SELECT * FROM workout_classes WHERE schedule_time >= ? AND schedule_time < ? ORDER BY schedule_time";
+    static final String SELECT_SCHEDULED_FROM =
+            "SELECT * FROM workout_classes WHERE schedule_time >= ? ORDER BY schedule_time";
+
     /**
      * Inserts a new workout class into the database.
      *
      * @param workoutClass the class to create
      * @return the created class with generated ID, or {@code null} if creation failed
+     * @throws DataAccessException with SQLSTATE 23P01 if the class overlaps another class of
+     *                             the same trainer
      */
     public WorkoutClass createWorkoutClass(WorkoutClass workoutClass) {
         String sql = "INSERT INTO workout_classes " +
-                "(workout_class_type, workout_class_description, trainer_id, schedule_time, capacity) " +
-                "VALUES (?, ?, ?, ?, ?)";
+                "(workout_class_type, workout_class_description, trainer_id, schedule_time, duration_minutes, capacity) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
 
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
@@ -39,7 +57,8 @@ public class WorkoutClassDAO {
             stmt.setString(2, workoutClass.getWorkoutClassDescription());
             stmt.setInt(3, workoutClass.getTrainerId());
             stmt.setTimestamp(4, Timestamp.valueOf(workoutClass.getScheduleTime()));
-            stmt.setInt(5, workoutClass.getCapacity());
+            stmt.setInt(5, workoutClass.getDurationMinutes());
+            stmt.setInt(6, workoutClass.getCapacity());
 
             int rows = stmt.executeUpdate();
             if (rows == 0) {
@@ -57,41 +76,66 @@ public class WorkoutClassDAO {
             return workoutClass;
 
         } catch (SQLException e) {
+            if (EXCLUSION_VIOLATION.equals(e.getSQLState())) {
+                throw new DataAccessException("Workout class overlaps another class of trainerId=" +
+                        workoutClass.getTrainerId(), e);
+            }
             LOGGER.log(Level.SEVERE, "Error creating workout class", e);
             return null;
         }
     }
 
     /**
-     * Updates an existing workout class. Trainers may only update classes they own.
+     * Updates an existing workout class. Trainers may only update classes they own, and the
+     * capacity cannot go below the number of members already booked.
      *
      * @param workoutClass updated class data, including ID and trainer ID
-     * @return {@code true} if the class was updated; {@code false} otherwise
+     * @return the {@link ClassUpdateResult}
+     * @throws DataAccessException with SQLSTATE 23P01 if the class would overlap another class
+     *                             of the same trainer
      */
-    public boolean updateWorkoutClass(WorkoutClass workoutClass) {
+    public ClassUpdateResult updateWorkoutClass(WorkoutClass workoutClass) {
         String sql = "UPDATE workout_classes SET " +
                 "workout_class_type = ?, " +
                 "workout_class_description = ?, " +
                 "schedule_time = ?, " +
+                "duration_minutes = ?, " +
                 "capacity = ? " +
-                "WHERE workout_class_id = ? AND trainer_id = ?";
-
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, workoutClass.getWorkoutClassType());
-            stmt.setString(2, workoutClass.getWorkoutClassDescription());
-            stmt.setTimestamp(3, Timestamp.valueOf(workoutClass.getScheduleTime()));
-            stmt.setInt(4, workoutClass.getCapacity());
-            stmt.setInt(5, workoutClass.getWorkoutClassId());
-            stmt.setInt(6, workoutClass.getTrainerId());
+                "WHERE workout_class_id = ? AND trainer_id = ? AND booked_count <= ?";
+
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, workoutClass.getWorkoutClassType());
+                stmt.setString(2, workoutClass.getWorkoutClassDescription());
+                stmt.setTimestamp(3, Timestamp.valueOf(workoutClass.getScheduleTime()));
+                stmt.setInt(4, workoutClass.getDurationMinutes());
+                stmt.setInt(5, workoutClass.getCapacity());
+                stmt.setInt(6, workoutClass.getWorkoutClassId());
+                stmt.setInt(7, workoutClass.getTrainerId());
+                stmt.setInt(8, workoutClass.getCapacity());
+
+                if (stmt.executeUpdate() > 0) {
+                    return ClassUpdateResult.UPDATED;
+                }
+            }
 
-            int rows = stmt.executeUpdate();
-            return rows > 0;
+            // Nothing matched: either the class is not the trainer's, or it has more bookings
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT 1 FROM workout_classes WHERE workout_class_id = ? AND trainer_id = ?")) {
+                stmt.setInt(1, workoutClass.getWorkoutClassId());
+                stmt.setInt(2, workoutClass.getTrainerId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? ClassUpdateResult.CAPACITY_BELOW_BOOKINGS : ClassUpdateResult.NOT_FOUND;
+                }
+            }
 
         } catch (SQLException e) {
+            if (EXCLUSION_VIOLATION.equals(e.getSQLState())) {
+                throw new DataAccessException("Workout class overlaps another class of trainerId=" +
+                        workoutClass.getTrainerId(), e);
+            }
             LOGGER.log(Level.SEVERE, "Error updating workout class", e);
-            return false;
+            return ClassUpdateResult.FAILED;
         }
     }
 
@@ -126,10 +170,10 @@ public class WorkoutClassDAO {
      * @return list of all classes
      */
     public List<WorkoutClass> getAllClasses() {
-        String sql = "SELECT * FROM workout_classes ORDER BY schedule_time";
+        String sql = SELECT_ALL_BY_SCHEDULE;
         List<WorkoutClass> classes = new ArrayList<>();
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -144,6 +188,62 @@ public class WorkoutClassDAO {
         return classes;
     }
 
+    /**
+     * Returns the classes scheduled in a time range, ordered by schedule time.
+     *
+     * @param from first start time (inclusive)
+     * @param to   last start time (exclusive), or {@code null} for no upper bound
+     * @return list of classes, or {@code null} if there was an error
+     */
+    public List<WorkoutClass> getClassesBetween(LocalDateTime from, LocalDateTime to) {
+        String sql = to != null ? SELECT_SCHEDULED_BETWEEN : SELECT_SCHEDULED_FROM;
+        List<WorkoutClass> classes = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            if (to != null) {
+                stmt.setTimestamp(2, Timestamp.valueOf(to));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    classes.add(mapRowToWorkoutClass(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching workout classes between " + from + " and " + to, e);
+            return null;
+        }
+
+        return classes;
+    }
+
+    /**
+     * Streams all workout classes, ordered by schedule time, fetching rows in batches as the stream is consumed.
+     * The stream holds a database connection, so close it (try-with-resources) when done.
+     *
+     * @return a stream of {@link WorkoutClass} objects
+     * @throws DataAccessException if the query fails
+     */
+    public Stream<WorkoutClass> streamAllClasses() {
+        String sql = SELECT_ALL_BY_SCHEDULE;
+        return StreamingQuery.stream(sql, this::mapRowToWorkoutClass);
+    }
+
+    /**
+     * Passes every workout class to a consumer, one row at a time, in constant memory.
+     *
+     * @param consumer receives each {@link WorkoutClass}
+     * @return the number of rows processed
+     * @throws DataAccessException if the query fails
+     */
+    public long forEachClass(Consumer<WorkoutClass> consumer) {
+        String sql = SELECT_ALL_BY_SCHEDULE;
+        return StreamingQuery.forEach(sql, this::mapRowToWorkoutClass, consumer);
+    }
+
     /**
      * Returns all classes owned by a specific trainer.
      *
@@ -151,10 +251,10 @@ public class WorkoutClassDAO {
      * @return list of classes for that trainer
      */
     public List<WorkoutClass> getClassesByTrainerId(int trainerId) {
-        String sql = "SELECT * FROM workout_classes WHERE trainer_id = ? ORDER BY schedule_time";
+        String sql = SELECT_BY_TRAINER;
         List<WorkoutClass> classes = new ArrayList<>();
 
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, trainerId);
@@ -171,6 +271,90 @@ public class WorkoutClassDAO {
         return classes;
     }
 
+    /**
+     * Returns every class of a trainer, for building the trainer's schedule index. Reads from the
+     * primary and, unlike {@link #getClassesByTrainerId(int)}, reports errors, so an incomplete
+     * schedule is never mistaken for a free one.
+     *
+     * @param trainerId the trainer's ID
+     * @return list of classes ordered by schedule time, or {@code null} if there was an error
+     */
+    public List<WorkoutClass> findTrainerSchedule(int trainerId) {
+        String sql = SELECT_BY_TRAINER;
+        List<WorkoutClass> classes = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, trainerId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    classes.add(mapRowToWorkoutClass(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading schedule of trainerId=" + trainerId, e);
+            return null;
+        }
+
+        return classes;
+    }
+
+    /**
+     * Returns the classes a member has booked, ordered by schedule time.
+     *
+     * @param memberId the member's user ID
+     * @return list of booked classes
+     */
+    public List<WorkoutClass> getClassesBookedByMember(int memberId) {
+        String sql = "SELECT c.* FROM workout_classes c " +
+                "JOIN class_bookings b ON b.workout_class_id = c.workout_class_id " +
+                "WHERE b.member_id = ? ORDER BY c.schedule_time";
+        List<WorkoutClass> classes = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, memberId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    classes.add(mapRowToWorkoutClass(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching booked classes for memberId=" + memberId, e);
+        }
+
+        return classes;
+    }
+
+    /**
+     * Deletes up to {@code batchSize} classes of one trainer, in a short statement of its own.
+     * Used to purge a deleted trainer's classes a little at a time.
+     *
+     * @param trainerId the trainer's user ID
+     * @param batchSize maximum number of rows to delete
+     * @return the number of rows deleted, or {@code -1} if there was an error
+     */
+    public int deleteClassesForTrainerBatch(int trainerId, int batchSize) {
+        String sql = "DELETE FROM workout_classes WHERE workout_class_id IN " +
+                "(SELECT workout_class_id FROM workout_classes WHERE trainer_id = ? LIMIT ?)";
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, trainerId);
+            stmt.setInt(2, batchSize);
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error deleting classes for trainer id: " + trainerId, e);
+            return -1;
+        }
+    }
+
     /**
      * Maps a result set row to a {@link WorkoutClass}.
      *
@@ -185,9 +369,12 @@ public class WorkoutClassDAO {
         int trainerId = rs.getInt("trainer_id");
         Timestamp ts = rs.getTimestamp("schedule_time");
         int capacity = rs.getInt("capacity");
+        int bookedCount = rs.getInt("booked_count");
 
         LocalDateTime scheduleTime = ts != null ? ts.toLocalDateTime() : null;
 
-        return new WorkoutClass(id, type, description, trainerId, scheduleTime, capacity);
+        WorkoutClass workoutClass = new WorkoutClass(id, type, description, trainerId, scheduleTime, capacity, bookedCount);
+        workoutClass.setDurationMinutes(rs.getInt("duration_minutes"));
+        return workoutClass;
     }
 }
@@ -0,0 +1,45 @@
+package com.gymmanagement.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents an authenticated login session.
+ * <p>
+ * A session is identified by an opaque, random token that is handed to the client after a
+ * successful login. Presenting the token again identifies the {@link User} without
+ * re-checking their password.
+ */
+public class Session {
+
+    private final String token;
+    private final User user;
+    private final LocalDateTime createdAt;
+
+    public Session(String token, User user, LocalDateTime createdAt) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = createdAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        // Never print the token itself
+        return "Session{" +
+                "user=" + user.getUsername() +
+                ", role=" + user.getRole() +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -6,16 +6,21 @@ import java.time.LocalDateTime;
  * Represents a workout class offered at the gym.
  * <p>
  * Each class is associated with a trainer and includes a type, description,
- * scheduled date and time, and maximum capacity.
+ * scheduled date and time, duration and maximum capacity, plus how many spots are booked.
  */
 public class WorkoutClass {
 
+    /** Duration of classes created without one, matching the database default. */
+    public static final int DEFAULT_DURATION_MINUTES = 60;
+
     private int workoutClassId;
     private String workoutClassType;
     private String workoutClassDescription;
     private int trainerId;
     private LocalDateTime scheduleTime;
+    private int durationMinutes = DEFAULT_DURATION_MINUTES;
     private int capacity;
+    private int bookedCount;
 
     public WorkoutClass() {
     }
@@ -30,6 +35,12 @@ public class WorkoutClass {
         this.capacity = capacity;
     }
 
+    public WorkoutClass(int workoutClassId, String workoutClassType, String workoutClassDescription,
+                        int trainerId, LocalDateTime scheduleTime, int capacity, int bookedCount) {
+        this(workoutClassId, workoutClassType, workoutClassDescription, trainerId, scheduleTime, capacity);
+        this.bookedCount = bookedCount;
+    }
+
     public int getWorkoutClassId() {
         return workoutClassId;
     }
@@ -70,6 +81,23 @@ public class WorkoutClass {
         this.scheduleTime = scheduleTime;
     }
 
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * Returns the time the class ends, i.e. its schedule time plus its duration.
+     *
+     * @return end time, or {@code null} if the schedule time is not set
+     */
+    public LocalDateTime getEndTime() {
+        return scheduleTime != null ? scheduleTime.plusMinutes(durationMinutes) : null;
+    }
+
     public int getCapacity() {
         return capacity;
     }
@@ -78,6 +106,14 @@ public class WorkoutClass {
         this.capacity = capacity;
     }
 
+    public int getBookedCount() {
+        return bookedCount;
+    }
+
+    public void setBookedCount(int bookedCount) {
+        this.bookedCount = bookedCount;
+    }
+
     @Override
     public String toString() {
         return "WorkoutClass{" +
@@ -86,7 +122,9 @@ public class WorkoutClass {
                 ", workoutClassDescription='" + workoutClassDescription + '\'' +
                 ", trainerId=" + trainerId +
                 ", scheduleTime=" + scheduleTime +
+                ", durationMinutes=" + durationMinutes +
                 ", capacity=" + capacity +
+                ", booked=" + bookedCount +
                 '}';
     }
 }
@@ -0,0 +1,255 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.MembershipDAO;
+import com.gymmanagement.model.Membership;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.IntervalTree;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index answering "which members were active on a given day" questions.
+ * <p>
+ * A membership is active from its start date up to and including its end date. Per member the
+ * index keeps the union of their membership periods (overlapping or back-to-back memberships
+ * merge into one period), so each member counts once per day. Those periods are held in
+ * <ul>
+ *     <li>an {@link IntervalTree} keyed by member ID, for listing the members active on a day, and</li>
+ *     <li>a sorted map of +1/-1 changes per day, for counting active members per day over a range.</li>
+ * </ul>
+ * The index is loaded from the database by streaming the memberships table on first use.
+ * New purchases are queued by {@link #onMembershipPurchased(Membership)} without blocking and
+ * merged in before the next query. When memberships are deleted the index is simply dropped
+ * with {@link #invalidate()} and reloaded on the next query.
+ */
+public class ActiveMembershipIndex {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static volatile ActiveMembershipIndex defaultInstance;
+
+    private final MembershipDAO membershipDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<Membership> pending = new ConcurrentLinkedQueue<>();
+
+    /** Merged active periods per member: start epoch day -> end epoch day (exclusive). */
+    private final Map<Integer, TreeMap<Long, Long>> periodsByMember = new HashMap<>();
+    private final IntervalTree<Integer> periods = new IntervalTree<>();
+    /** Change in the number of active members at the start of each epoch day. */
+    private final TreeMap<Long, Integer> dailyChanges = new TreeMap<>();
+
+    private volatile boolean loaded;
+
+    public ActiveMembershipIndex(MembershipDAO membershipDAO) {
+        this.membershipDAO = membershipDAO;
+    }
+
+    /**
+     * Returns the application-wide index.
+     *
+     * @return the shared {@link ActiveMembershipIndex}
+     */
+    public static ActiveMembershipIndex getDefault() {
+        if (defaultInstance == null) {
+            synchronized (ActiveMembershipIndex.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new ActiveMembershipIndex(new MembershipDAO());
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Records a newly purchased membership. Never blocks; the membership is merged into the
+     * index before the next query.
+     *
+     * @param membership the created membership
+     */
+    public void onMembershipPurchased(Membership membership) {
+        if (loaded) {
+            pending.add(membership);
+        }
+    }
+
+    /**
+     * Drops the index after memberships were deleted or changed; it is rebuilt on next use.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of the members with an active membership on a day.
+     *
+     * @param date the day
+     * @return member IDs in ascending order
+     * @throws DataAccessException if the index had to be loaded and loading failed
+     */
+    public List<Integer> getActiveMemberIds(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            ensureCurrent();
+            List<Integer> memberIds = new ArrayList<>();
+            for (IntervalTree.Interval<Integer> period : periods.findContaining(date.toEpochDay())) {
+                memberIds.add(period.getValue());
+            }
+            memberIds.sort(null);
+            return memberIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of members with an active membership on a day.
+     *
+     * @param date the day
+     * @return active member count
+     * @throws DataAccessException if the index had to be loaded and loading failed
+     */
+    public int countActiveMembers(LocalDate date) {
+        return getDailyActiveCounts(date, date).get(date);
+    }
+
+    /**
+     * Returns the number of members with an active membership on each day of a range.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (inclusive)
+     * @return active member count per day, in date order
+     * @throws DataAccessException if the index had to be loaded and loading failed
+     */
+    public SortedMap<LocalDate, Integer> getDailyActiveCounts(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            ensureCurrent();
+            long first = from.toEpochDay();
+            long last = to.toEpochDay();
+
+            int active = 0;
+            for (int change : dailyChanges.headMap(first, false).values()) {
+                active += change;
+            }
+            SortedMap<LocalDate, Integer> counts = new TreeMap<>();
+            long day = first;
+            for (Map.Entry<Long, Integer> change : dailyChanges.subMap(first, true, last, true).entrySet()) {
+                for (; day < change.getKey(); day++) {
+                    counts.put(LocalDate.ofEpochDay(day), active);
+                }
+                active += change.getValue();
+            }
+            for (; day <= last; day++) {
+                counts.put(LocalDate.ofEpochDay(day), active);
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the index if needed and applies queued purchases. Called with the read lock held;
+     * briefly upgrades to the write lock when there is work to do.
+     */
+    private void ensureCurrent() {
+        if (loaded && pending.isEmpty()) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+            Membership membership;
+            while ((membership = pending.poll()) != null) {
+                addPeriod(membership);
+            }
+        } finally {
+            // Downgrade: take the read lock before giving up the write lock
+            lock.readLock().lock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        periodsByMember.clear();
+        periods.clear();
+        dailyChanges.clear();
+        // Purchases made while loading are queued and merged afterwards; merging is idempotent
+        loaded = true;
+        long start = System.nanoTime();
+        try {
+            long rows = membershipDAO.forEachMembership(this::addPeriod);
+            LOGGER.info("Active membership index loaded " + rows + " memberships (" + periods.size() +
+                    " member periods) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (DataAccessException e) {
+            loaded = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Merges one membership into its member's periods, keeping the tree and the daily changes
+     * in step.
+     */
+    private void addPeriod(Membership membership) {
+        if (membership.getStartDate() == null || membership.getEndDate() == null ||
+                membership.getEndDate().isBefore(membership.getStartDate())) {
+            return;
+        }
+        int memberId = membership.getMemberId();
+        long low = membership.getStartDate().toEpochDay();
+        long high = membership.getEndDate().toEpochDay() + 1;
+
+        TreeMap<Long, Long> memberPeriods = periodsByMember.computeIfAbsent(memberId, id -> new TreeMap<>());
+
+        // Absorb every existing period that overlaps or touches [low, high)
+        Map.Entry<Long, Long> previous = memberPeriods.floorEntry(low);
+        if (previous != null && previous.getValue() >= low) {
+            if (previous.getValue() >= high) {
+                return;
+            }
+            low = previous.getKey();
+        }
+        Map.Entry<Long, Long> next;
+        while ((next = memberPeriods.ceilingEntry(low)) != null && next.getKey() <= high) {
+            high = Math.max(high, next.getValue());
+            removePeriod(memberId, memberPeriods, next.getKey(), next.getValue());
+        }
+
+        memberPeriods.put(low, high);
+        periods.add(low, high, memberId);
+        addChange(low, 1);
+        addChange(high, -1);
+    }
+
+    private void removePeriod(int memberId, TreeMap<Long, Long> memberPeriods, long low, long high) {
+        memberPeriods.remove(low);
+        periods.remove(low, high, memberId);
+        addChange(low, -1);
+        addChange(high, 1);
+    }
+
+    private void addChange(long day, int delta) {
+        dailyChanges.merge(day, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+}
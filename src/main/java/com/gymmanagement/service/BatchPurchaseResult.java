@@ -0,0 +1,93 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.model.Membership;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a batch membership purchase. Every entry of the batch ends up either in
+ * {@link #getCreated()} or in {@link #getFailures()}.
+ */
+public class BatchPurchaseResult {
+
+    private final List<Membership> created = new ArrayList<>();
+    private final List<EntryFailure> failures = new ArrayList<>();
+
+    void entriesCreated(List<Membership> memberships) {
+        created.addAll(memberships);
+    }
+
+    void entryFailed(int index, MembershipPurchase purchase, String reason) {
+        failures.add(new EntryFailure(index, purchase, reason));
+    }
+
+    /**
+     * Returns the memberships that were created, with their generated IDs.
+     *
+     * @return created memberships
+     */
+    public List<Membership> getCreated() {
+        return Collections.unmodifiableList(created);
+    }
+
+    /**
+     * Returns the entries that were not created, in input order.
+     *
+     * @return failed entries
+     */
+    public List<EntryFailure> getFailures() {
+        List<EntryFailure> sorted = new ArrayList<>(failures);
+        sorted.sort(Comparator.comparingInt(EntryFailure::getIndex));
+        return Collections.unmodifiableList(sorted);
+    }
+
+    public boolean isAllCreated() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPurchaseResult{" +
+                "created=" + created.size() +
+                ", failed=" + failures.size() +
+                '}';
+    }
+
+    /**
+     * One entry of the batch that was not created.
+     */
+    public static class EntryFailure {
+        private final int index;
+        private final MembershipPurchase purchase;
+        private final String reason;
+
+        public EntryFailure(int index, MembershipPurchase purchase, String reason) {
+            this.index = index;
+            this.purchase = purchase;
+            this.reason = reason;
+        }
+
+        /**
+         * @return position of the entry in the submitted list (0-based)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public MembershipPurchase getPurchase() {
+            return purchase;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "entry " + index + " (member " + purchase.getMemberId() + "): " + reason;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.WorkoutClassDAO;
+import com.gymmanagement.model.WorkoutClass;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * In-memory calendar of workout classes, bucketed by the day they start.
+ * <p>
+ * The calendar holds every class from {@code gym.calendar.pastDays} (default 7) days before it
+ * was loaded onwards, so browsing the schedule never reads the history of past classes. Each
+ * day maps to an immutable list of that day's classes sorted by start time, in a
+ * {@link ConcurrentSkipListMap}; a date range is answered by walking the buckets in range
+ * without taking a lock. Writers (class changes made through {@link WorkoutClassService},
+ * bookings) are serialized and replace whole buckets.
+ * <p>
+ * Changes made outside this application instance are picked up by reloading the calendar from
+ * the database every {@code gym.calendar.reloadSeconds} (default 300), or right away after
+ * {@link #invalidate()}. Ranges that start before the cached days are read from the database.
+ */
+public class ClassCalendarCache {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static final Comparator<WorkoutClass> BY_START =
+            Comparator.comparing(WorkoutClass::getScheduleTime).thenComparingInt(WorkoutClass::getWorkoutClassId);
+
+    private static volatile ClassCalendarCache defaultInstance;
+
+    private final WorkoutClassDAO workoutClassDAO;
+    private final int pastDays;
+    private final long reloadNanos;
+
+    /** Replaced as a whole on reload, so readers never see a half-built calendar. */
+    private volatile ConcurrentSkipListMap<LocalDate, List<WorkoutClass>> classesByDay = new ConcurrentSkipListMap<>();
+    /** Day bucket of each cached class; guarded by {@code this}. */
+    private final Map<Integer, LocalDate> dayByClass = new HashMap<>();
+
+    /** First day held by the calendar, or {@code null} while it is not loaded. */
+    private volatile LocalDate coveredFrom;
+    private volatile long loadedAtNanos;
+
+    private final LongAdder cacheReads = new LongAdder();
+    private final LongAdder databaseReads = new LongAdder();
+
+    public ClassCalendarCache(WorkoutClassDAO workoutClassDAO, int pastDays, long reloadSeconds) {
+        this.workoutClassDAO = workoutClassDAO;
+        this.pastDays = pastDays;
+        this.reloadNanos = TimeUnit.SECONDS.toNanos(reloadSeconds);
+    }
+
+    /**
+     * Returns the application-wide calendar.
+     *
+     * @return the shared {@link ClassCalendarCache}
+     */
+    public static ClassCalendarCache getDefault() {
+        if (defaultInstance == null) {
+            synchronized (ClassCalendarCache.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new ClassCalendarCache(new WorkoutClassDAO(),
+                            Math.max(0, AppConfig.getInt("gym.calendar.pastDays", 7)),
+                            Math.max(1, AppConfig.getLong("gym.calendar.reloadSeconds", 300L)));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Returns the classes starting on the days of a range, ordered by start time.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (inclusive)
+     * @return the classes; callers may modify the returned objects freely
+     * @throws DataAccessException if the classes could not be read from the database
+     */
+    public List<WorkoutClass> getClasses(LocalDate from, LocalDate to) {
+        List<WorkoutClass> result = new ArrayList<>();
+        if (to.isBefore(from)) {
+            return result;
+        }
+        ensureLoaded();
+        LocalDate covered = coveredFrom;
+        if (covered == null || from.isBefore(covered)) {
+            databaseReads.increment();
+            List<WorkoutClass> classes = workoutClassDAO.getClassesBetween(from.atStartOfDay(),
+                    to.plusDays(1).atStartOfDay());
+            if (classes == null) {
+                throw new DataAccessException("Could not read workout classes from " + from + " to " + to, null);
+            }
+            return classes;
+        }
+        cacheReads.increment();
+        for (List<WorkoutClass> day : classesByDay.subMap(from, true, to, true).values()) {
+            for (WorkoutClass workoutClass : day) {
+                result.add(copyOf(workoutClass, workoutClass.getBookedCount()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a newly created class, or replaces a changed one. A changed class keeps the booked
+     * count the calendar already has for it.
+     *
+     * @param workoutClass the class as stored in the database
+     */
+    public synchronized void put(WorkoutClass workoutClass) {
+        if (coveredFrom == null || workoutClass.getScheduleTime() == null) {
+            return;
+        }
+        int bookedCount = workoutClass.getBookedCount();
+        WorkoutClass previous = removeFromBucket(workoutClass.getWorkoutClassId());
+        if (previous != null) {
+            bookedCount = previous.getBookedCount();
+        }
+        addToBucket(copyOf(workoutClass, bookedCount));
+    }
+
+    /**
+     * Removes a deleted class.
+     *
+     * @param workoutClassId the class
+     */
+    public synchronized void remove(int workoutClassId) {
+        removeFromBucket(workoutClassId);
+    }
+
+    /**
+     * Adjusts a class's booked count after bookings were made or cancelled.
+     *
+     * @param workoutClassId the class
+     * @param delta          change in the number of booked spots
+     */
+    public synchronized void adjustBookedCount(int workoutClassId, int delta) {
+        WorkoutClass previous = removeFromBucket(workoutClassId);
+        if (previous != null) {
+            addToBucket(copyOf(previous, Math.max(0, previous.getBookedCount() + delta)));
+        }
+    }
+
+    /**
+     * Tells whether a class has already started, as far as the calendar knows.
+     *
+     * @param workoutClassId the class
+     * @return {@code true} if the class is in the calendar and its start time has passed;
+     * {@code false} if it has not started or is not in the calendar
+     */
+    public boolean hasStarted(int workoutClassId) {
+        ensureLoaded();
+        LocalDate day;
+        synchronized (this) {
+            day = dayByClass.get(workoutClassId);
+        }
+        if (day == null) {
+            return false;
+        }
+        for (WorkoutClass workoutClass : classesByDay.getOrDefault(day, List.of())) {
+            if (workoutClass.getWorkoutClassId() == workoutClassId) {
+                return !workoutClass.getScheduleTime().isAfter(LocalDateTime.now());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the calendar, e.g. after classes or bookings were removed directly in the
+     * database. It is reloaded on the next read.
+     */
+    public synchronized void invalidate() {
+        coveredFrom = null;
+        classesByDay = new ConcurrentSkipListMap<>();
+        dayByClass.clear();
+    }
+
+    /**
+     * Returns a one-line summary for the metrics screen.
+     *
+     * @return calendar statistics
+     */
+    public String getStatsSummary() {
+        return "ClassCalendar{days=" + classesByDay.size() +
+                ", coveredFrom=" + coveredFrom +
+                ", cacheReads=" + cacheReads.sum() +
+                ", databaseReads=" + databaseReads.sum() + '}';
+    }
+
+    private void ensureLoaded() {
+        if (coveredFrom != null && System.nanoTime() - loadedAtNanos < reloadNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (coveredFrom != null && System.nanoTime() - loadedAtNanos < reloadNanos) {
+                return;
+            }
+            long start = System.nanoTime();
+            LocalDate from = LocalDate.now().minusDays(pastDays);
+            List<WorkoutClass> classes = workoutClassDAO.getClassesBetween(from.atStartOfDay(), null);
+            if (classes == null) {
+                // Keep serving the previous calendar, if any; ranges fall back to the database
+                LOGGER.warning("Class calendar could not be loaded");
+                return;
+            }
+
+            dayByClass.clear();
+            Map<LocalDate, List<WorkoutClass>> days = new HashMap<>();
+            for (WorkoutClass workoutClass : classes) {
+                LocalDate day = workoutClass.getScheduleTime().toLocalDate();
+                days.computeIfAbsent(day, d -> new ArrayList<>()).add(workoutClass);
+                dayByClass.put(workoutClass.getWorkoutClassId(), day);
+            }
+            ConcurrentSkipListMap<LocalDate, List<WorkoutClass>> loaded = new ConcurrentSkipListMap<>();
+            for (Map.Entry<LocalDate, List<WorkoutClass>> day : days.entrySet()) {
+                // Already ordered by start time by the query
+                loaded.put(day.getKey(), Collections.unmodifiableList(day.getValue()));
+            }
+            classesByDay = loaded;
+            coveredFrom = from;
+            loadedAtNanos = System.nanoTime();
+            LOGGER.info("Class calendar loaded " + classes.size() + " classes on " + days.size() +
+                    " days in " + (loadedAtNanos - start) / 1_000_000 + " ms");
+        }
+    }
+
+    /** Called with the lock held. */
+    private WorkoutClass removeFromBucket(int workoutClassId) {
+        LocalDate day = dayByClass.remove(workoutClassId);
+        if (day == null) {
+            return null;
+        }
+        List<WorkoutClass> bucket = classesByDay.get(day);
+        if (bucket == null) {
+            return null;
+        }
+        WorkoutClass removed = null;
+        List<WorkoutClass> remaining = new ArrayList<>(bucket.size());
+        for (WorkoutClass workoutClass : bucket) {
+            if (workoutClass.getWorkoutClassId() == workoutClassId) {
+                removed = workoutClass;
+            } else {
+                remaining.add(workoutClass);
+            }
+        }
+        if (remaining.isEmpty()) {
+            classesByDay.remove(day);
+        } else {
+            classesByDay.put(day, Collections.unmodifiableList(remaining));
+        }
+        return removed;
+    }
+
+    /** Called with the lock held. */
+    private void addToBucket(WorkoutClass workoutClass) {
+        LocalDate day = workoutClass.getScheduleTime().toLocalDate();
+        if (day.isBefore(coveredFrom)) {
+            return;
+        }
+        List<WorkoutClass> bucket = new ArrayList<>(classesByDay.getOrDefault(day, List.of()));
+        bucket.add(workoutClass);
+        bucket.sort(BY_START);
+        classesByDay.put(day, Collections.unmodifiableList(bucket));
+        dayByClass.put(workoutClass.getWorkoutClassId(), day);
+    }
+
+    private static WorkoutClass copyOf(WorkoutClass workoutClass, int bookedCount) {
+        WorkoutClass copy = new WorkoutClass(workoutClass.getWorkoutClassId(), workoutClass.getWorkoutClassType(),
+                workoutClass.getWorkoutClassDescription(), workoutClass.getTrainerId(),
+                workoutClass.getScheduleTime(), workoutClass.getCapacity(), bookedCount);
+        copy.setDurationMinutes(workoutClass.getDurationMinutes());
+        return copy;
+    }
+}
@@ -0,0 +1,166 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.ClassBookingDAO;
+import com.gymmanagement.util.AppConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, in-memory count of the free spots of each workout class.
+ * <p>
+ * Every booking attempt first takes a spot here with a compare-and-set on an
+ * {@link AtomicInteger}. When a popular class opens and many members try to book at the same
+ * moment, only as many attempts as there are free spots go on to the database; the rest are
+ * turned away in memory without waiting for a connection or a row lock.
+ * <p>
+ * The counts are only a gate: the database's conditional update has the final say, so a count
+ * that is too high can never cause overbooking. A count that is too low (e.g. another
+ * application instance cancelled a booking) is corrected by re-reading the class from the
+ * database, at most once per {@code gym.booking.resyncMs} (default 1000) per full class.
+ */
+public class ClassCapacityTracker {
+
+    private static volatile ClassCapacityTracker defaultInstance;
+
+    private final ClassBookingDAO bookingDAO;
+    private final long resyncNanos;
+    private final ConcurrentHashMap<Integer, Spots> spotsByClass = new ConcurrentHashMap<>();
+
+    private final LongAdder rejectedInMemory = new LongAdder();
+
+    public ClassCapacityTracker(ClassBookingDAO bookingDAO, long resyncMillis) {
+        this.bookingDAO = bookingDAO;
+        this.resyncNanos = TimeUnit.MILLISECONDS.toNanos(resyncMillis);
+    }
+
+    /**
+     * Returns the application-wide tracker.
+     *
+     * @return the shared {@link ClassCapacityTracker}
+     */
+    public static ClassCapacityTracker getDefault() {
+        if (defaultInstance == null) {
+            synchronized (ClassCapacityTracker.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new ClassCapacityTracker(new ClassBookingDAO(),
+                            AppConfig.getLong("gym.booking.resyncMs", 1_000L));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Takes one free spot of a class, if there is one.
+     *
+     * @param workoutClassId the class
+     * @return {@code true} if the caller may go on and book in the database; {@code false} if
+     * the class is full
+     */
+    public boolean tryReserve(int workoutClassId) {
+        Spots spots = spotsByClass.get(workoutClassId);
+        if (spots == null) {
+            Integer remaining = bookingDAO.findRemainingSpots(workoutClassId);
+            if (remaining == null) {
+                // Unknown class or database trouble: let the database give the real answer
+                return true;
+            }
+            spots = spotsByClass.computeIfAbsent(workoutClassId, id -> new Spots(remaining, System.nanoTime()));
+        }
+
+        boolean resynced = false;
+        while (true) {
+            int free = spots.free.get();
+            if (free > 0) {
+                if (spots.free.compareAndSet(free, free - 1)) {
+                    return true;
+                }
+                continue;
+            }
+            if (resynced || !resync(workoutClassId, spots)) {
+                rejectedInMemory.increment();
+                return false;
+            }
+            resynced = true;
+        }
+    }
+
+    /**
+     * Gives back a spot taken with {@link #tryReserve(int)} that was not used, or one freed by
+     * a cancellation.
+     *
+     * @param workoutClassId the class
+     */
+    public void release(int workoutClassId) {
+        Spots spots = spotsByClass.get(workoutClassId);
+        if (spots != null) {
+            spots.free.incrementAndGet();
+        }
+    }
+
+    /**
+     * Forgets a class's count, e.g. after its capacity changed or it was deleted. The count is
+     * read again from the database on the next booking attempt.
+     *
+     * @param workoutClassId the class
+     */
+    public void invalidate(int workoutClassId) {
+        spotsByClass.remove(workoutClassId);
+    }
+
+    /**
+     * Forgets every count, e.g. after bookings were removed directly in the database.
+     */
+    public void invalidateAll() {
+        spotsByClass.clear();
+    }
+
+    /**
+     * Returns a one-line summary for the metrics screen.
+     *
+     * @return tracker statistics
+     */
+    public String getStatsSummary() {
+        return "ClassCapacity{trackedClasses=" + spotsByClass.size() +
+                ", rejectedInMemory=" + rejectedInMemory.sum() + '}';
+    }
+
+    /**
+     * Re-reads a full class's free spots, unless that happened recently. Only one thread
+     * performs a given re-read; the others see the class as full until it is done.
+     *
+     * @return {@code true} if the count was refreshed
+     */
+    private boolean resync(int workoutClassId, Spots spots) {
+        long now = System.nanoTime();
+        long last = spots.syncedAtNanos.get();
+        if (now - last < resyncNanos || !spots.syncedAtNanos.compareAndSet(last, now)) {
+            return false;
+        }
+        Integer remaining = bookingDAO.findRemainingSpots(workoutClassId);
+        if (remaining == null) {
+            return false;
+        }
+        // Bookings still in flight hold spots the database does not count yet; taking the
+        // larger view is safe because the database rejects anything beyond capacity
+        spots.free.set(remaining);
+        return true;
+    }
+
+    /**
+     * Free spots of one class and when they were last read from the database.
+     */
+    private static final class Spots {
+        private final AtomicInteger free;
+        private final AtomicLong syncedAtNanos;
+
+        private Spots(int free, long syncedAtNanos) {
+            this.free = new AtomicInteger(free);
+            this.syncedAtNanos = new AtomicLong(syncedAtNanos);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.model.Membership;
+
+import java.util.List;
+
+/**
+ * Receives the memberships found by a {@link MembershipExpiryScanner}, one chunk at a time,
+ * e.g. to send renewal reminders.
+ */
+@FunctionalInterface
+public interface ExpiryBatchHandler {
+
+    /**
+     * Processes one chunk of memberships, ordered by end date and ID.
+     * <p>
+     * A chunk counts as done once this returns. If it throws, the scan stops and the next run
+     * starts again with the same chunk, so handlers should tolerate seeing a membership twice.
+     *
+     * @param memberships the memberships in this chunk (never empty)
+     */
+    void handle(List<Membership> memberships);
+}
@@ -0,0 +1,90 @@
+package com.gymmanagement.service;
+
+/**
+ * Immutable snapshot of the timing counters kept by a {@link PasswordHasher}.
+ */
+public class HashingStats {
+
+    private final long hashCount;
+    private final long totalHashNanos;
+    private final long verifyCount;
+    private final long totalVerifyNanos;
+    private final long totalQueueWaitNanos;
+    private final long rejectedCount;
+    private final int queuedTasks;
+    private final int activeThreads;
+
+    public HashingStats(long hashCount, long totalHashNanos, long verifyCount, long totalVerifyNanos,
+                        long totalQueueWaitNanos, long rejectedCount, int queuedTasks, int activeThreads) {
+        this.hashCount = hashCount;
+        this.totalHashNanos = totalHashNanos;
+        this.verifyCount = verifyCount;
+        this.totalVerifyNanos = totalVerifyNanos;
+        this.totalQueueWaitNanos = totalQueueWaitNanos;
+        this.rejectedCount = rejectedCount;
+        this.queuedTasks = queuedTasks;
+        this.activeThreads = activeThreads;
+    }
+
+    public long getHashCount() {
+        return hashCount;
+    }
+
+    public long getVerifyCount() {
+        return verifyCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    /**
+     * Returns the average CPU time of one {@code BCrypt.hashpw} call.
+     *
+     * @return average hash time in milliseconds
+     */
+    public double getAverageHashMillis() {
+        return hashCount == 0 ? 0.0 : totalHashNanos / (double) hashCount / 1_000_000.0;
+    }
+
+    /**
+     * Returns the average CPU time of one {@code BCrypt.checkpw} call.
+     *
+     * @return average verify time in milliseconds
+     */
+    public double getAverageVerifyMillis() {
+        return verifyCount == 0 ? 0.0 : totalVerifyNanos / (double) verifyCount / 1_000_000.0;
+    }
+
+    /**
+     * Returns how long tasks waited in the queue before a hashing thread picked them up.
+     *
+     * @return average queue wait in milliseconds
+     */
+    public double getAverageQueueWaitMillis() {
+        long count = hashCount + verifyCount;
+        return count == 0 ? 0.0 : totalQueueWaitNanos / (double) count / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "HashingStats{" +
+                "hashes=" + hashCount +
+                ", avgHashMs=" + String.format("%.1f", getAverageHashMillis()) +
+                ", verifies=" + verifyCount +
+                ", avgVerifyMs=" + String.format("%.1f", getAverageVerifyMillis()) +
+                ", avgQueueWaitMs=" + String.format("%.1f", getAverageQueueWaitMillis()) +
+                ", rejected=" + rejectedCount +
+                ", queued=" + queuedTasks +
+                ", active=" + activeThreads +
+                '}';
+    }
+}
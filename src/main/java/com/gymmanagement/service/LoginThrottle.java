@@ -0,0 +1,104 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.StripedRateLimiter;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Limits how often logins may be attempted, per username and per client.
+ * <p>
+ * Each failed or successful attempt takes a token from two buckets: one for the username
+ * being tried and one for the client making the attempt. The check runs before the password
+ * hash is verified, so guessing attacks are turned away without spending any BCrypt time.
+ * The per-username limit protects a single account from being guessed from many clients;
+ * the per-client limit stops one client from trying many usernames.
+ */
+public class LoginThrottle {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static volatile LoginThrottle defaultInstance;
+
+    private final StripedRateLimiter byUsername;
+    private final StripedRateLimiter byClient;
+
+    /**
+     * Creates a login throttle.
+     *
+     * @param usernameBurst           attempts allowed in a burst for one username
+     * @param usernameRefillPerMinute attempts regained per minute for one username
+     * @param clientBurst             attempts allowed in a burst for one client
+     * @param clientRefillPerMinute   attempts regained per minute for one client
+     */
+    public LoginThrottle(int usernameBurst, double usernameRefillPerMinute,
+                         int clientBurst, double clientRefillPerMinute) {
+        this.byUsername = new StripedRateLimiter("LoginThrottle[username]", usernameBurst, usernameRefillPerMinute / 60.0);
+        this.byClient = new StripedRateLimiter("LoginThrottle[client]", clientBurst, clientRefillPerMinute / 60.0);
+    }
+
+    /**
+     * Returns the application-wide throttle, configured from {@code gym.login.username.burst}
+     * (default 5), {@code gym.login.username.refillPerMinute} (default 5),
+     * {@code gym.login.client.burst} (default 20) and {@code gym.login.client.refillPerMinute}
+     * (default 30).
+     *
+     * @return the shared {@link LoginThrottle}
+     */
+    public static LoginThrottle getDefault() {
+        if (defaultInstance == null) {
+            synchronized (LoginThrottle.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new LoginThrottle(
+                            AppConfig.getInt("gym.login.username.burst", 5),
+                            AppConfig.getInt("gym.login.username.refillPerMinute", 5),
+                            AppConfig.getInt("gym.login.client.burst", 20),
+                            AppConfig.getInt("gym.login.client.refillPerMinute", 30));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Records a login attempt and rejects it if either limit has been exceeded.
+     *
+     * @param username the username being logged in to
+     * @param clientId identifies where the attempt comes from
+     * @throws LoginThrottledException if the attempt is over the limit
+     */
+    public void checkAttempt(String username, String clientId) {
+        // Client first: a client that is already throttled must not use up the username's
+        // attempts and lock its real owner out
+        if (!byClient.tryAcquire(clientId == null ? "" : clientId)) {
+            LOGGER.warning("Login throttled: too many attempts from client: " + clientId);
+            throw new LoginThrottledException("Too many login attempts. Please wait a minute and try again.");
+        }
+        // Usernames differing only in case must share one bucket
+        String usernameKey = username == null ? "" : username.toLowerCase(Locale.ROOT);
+        if (!byUsername.tryAcquire(usernameKey)) {
+            LOGGER.warning("Login throttled: too many attempts for username: " + username);
+            throw new LoginThrottledException("Too many login attempts. Please wait a minute and try again.");
+        }
+    }
+
+    /**
+     * Returns the number of attempts rejected so far, across both limits.
+     *
+     * @return throttled attempt count
+     */
+    public long getThrottledCount() {
+        return byUsername.getRejectedCount() + byClient.getRejectedCount();
+    }
+
+    /**
+     * Returns a one-line summary of both limits for the metrics screen.
+     *
+     * @return throttle statistics
+     */
+    public String getStatsSummary() {
+        return byUsername.getStatsSummary() + ", " + byClient.getStatsSummary();
+    }
+}
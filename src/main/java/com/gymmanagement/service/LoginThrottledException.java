@@ -0,0 +1,17 @@
+package com.gymmanagement.service;
+
+/**
+ * Thrown when a login attempt is refused because too many attempts were made recently
+ * for the same username or from the same client.
+ * <p>
+ * It extends {@link ServiceBusyException} so callers that already show "try again later"
+ * messages handle it without changes.
+ */
+public class LoginThrottledException extends ServiceBusyException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+}
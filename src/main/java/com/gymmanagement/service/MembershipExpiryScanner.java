@@ -0,0 +1,130 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.MembershipDAO;
+import com.gymmanagement.dao.ScanCheckpoint;
+import com.gymmanagement.dao.ScanCheckpointDAO;
+import com.gymmanagement.model.Membership;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Finds memberships by end date, e.g. those expiring soon (for renewal outreach) or those
+ * that have recently expired.
+ * <p>
+ * The scan walks the {@code (end_date, membership_id)} index in chunks of
+ * {@code gym.expiry.chunkSize} (default 500) memberships. Each chunk is a short query of its
+ * own, so no transaction stays open for the length of the scan, and after each chunk the
+ * position is saved in {@code scan_checkpoints}. A run that stops part-way (error, restart)
+ * therefore continues where it left off, and a run over a range that was already completed
+ * does nothing. Chunks are delivered at least once.
+ */
+public class MembershipExpiryScanner {
+
+    /** Scan name for {@link #scanExpiringWithin(int, ExpiryBatchHandler)}. */
+    public static final String EXPIRING_SCAN = "memberships-expiring";
+    /** Scan name for {@link #scanExpiredWithin(int, ExpiryBatchHandler)}. */
+    public static final String EXPIRED_SCAN = "memberships-expired";
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private final MembershipDAO membershipDAO;
+    private final ScanCheckpointDAO checkpointDAO;
+    private final int chunkSize;
+
+    public MembershipExpiryScanner() {
+        this(new MembershipDAO(), new ScanCheckpointDAO(),
+                Math.max(1, AppConfig.getInt("gym.expiry.chunkSize", 500)));
+    }
+
+    public MembershipExpiryScanner(MembershipDAO membershipDAO, ScanCheckpointDAO checkpointDAO, int chunkSize) {
+        this.membershipDAO = membershipDAO;
+        this.checkpointDAO = checkpointDAO;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Scans the memberships that end between today and {@code days} days from now.
+     *
+     * @param days    how many days ahead to look
+     * @param handler receives the memberships chunk by chunk
+     * @return the scan's final checkpoint
+     */
+    public ScanCheckpoint scanExpiringWithin(int days, ExpiryBatchHandler handler) {
+        LocalDate today = LocalDate.now();
+        return scan(EXPIRING_SCAN, today, today.plusDays(days), handler);
+    }
+
+    /**
+     * Scans the memberships that ended during the last {@code days} days (not including today).
+     *
+     * @param days    how many days back to look
+     * @param handler receives the memberships chunk by chunk
+     * @return the scan's final checkpoint
+     */
+    public ScanCheckpoint scanExpiredWithin(int days, ExpiryBatchHandler handler) {
+        LocalDate today = LocalDate.now();
+        return scan(EXPIRED_SCAN, today.minusDays(days), today.minusDays(1), handler);
+    }
+
+    /**
+     * Scans the memberships whose end date lies in a range, resuming a previous run of the
+     * same scan over the same range if there is one.
+     *
+     * @param scanName name the progress is saved under
+     * @param from     first end date (inclusive)
+     * @param to       last end date (inclusive)
+     * @param handler  receives the memberships chunk by chunk
+     * @return the scan's final checkpoint; {@link ScanCheckpoint#isCompleted()} is {@code false}
+     * if the scan stopped early because of a database error
+     * @throws RuntimeException whatever the handler throws; progress up to the previous chunk is kept
+     */
+    public ScanCheckpoint scan(String scanName, LocalDate from, LocalDate to, ExpiryBatchHandler handler) {
+        ScanCheckpoint checkpoint = checkpointDAO.findByName(scanName);
+        if (checkpoint != null && checkpoint.getRangeFrom().equals(from) && checkpoint.getRangeTo().equals(to)) {
+            if (checkpoint.isCompleted()) {
+                LOGGER.info("Scan " + scanName + " over " + from + ".." + to + " already completed (" +
+                        checkpoint.getProcessedCount() + " memberships)");
+                return checkpoint;
+            }
+            LOGGER.info("Resuming scan " + scanName + " after " + checkpoint.getProcessedCount() + " memberships");
+        } else {
+            checkpoint = new ScanCheckpoint(scanName, from, to, null, 0, 0, false);
+        }
+
+        long start = System.nanoTime();
+        while (true) {
+            List<Membership> chunk = membershipDAO.findByEndDateChunk(
+                    from, to, checkpoint.getLastEndDate(), checkpoint.getLastMembershipId(), chunkSize);
+            if (chunk == null) {
+                LOGGER.warning("Scan " + scanName + " stopped by a database error after " +
+                        checkpoint.getProcessedCount() + " memberships; the next run resumes from there");
+                return checkpoint;
+            }
+
+            boolean done = chunk.size() < chunkSize;
+            if (!chunk.isEmpty()) {
+                handler.handle(chunk);
+                Membership last = chunk.get(chunk.size() - 1);
+                checkpoint = new ScanCheckpoint(scanName, from, to, last.getEndDate(), last.getMembershipId(),
+                        checkpoint.getProcessedCount() + chunk.size(), done);
+            } else {
+                checkpoint = new ScanCheckpoint(scanName, from, to, checkpoint.getLastEndDate(),
+                        checkpoint.getLastMembershipId(), checkpoint.getProcessedCount(), true);
+            }
+            if (!checkpointDAO.save(checkpoint)) {
+                LOGGER.warning("Could not save progress of scan " + scanName + "; an interrupted run would repeat chunks");
+            }
+
+            if (done) {
+                LOGGER.info("Scan " + scanName + " over " + from + ".." + to + " completed: " +
+                        checkpoint.getProcessedCount() + " memberships in " +
+                        (System.nanoTime() - start) / 1_000_000 + " ms");
+                return checkpoint;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.gymmanagement.service;
+
+import java.math.BigDecimal;
+
+/**
+ * One entry of a batch membership purchase, e.g. one employee of a corporate deal.
+ */
+public class MembershipPurchase {
+
+    private final int memberId;
+    private final String type;
+    private final String description;
+    private final BigDecimal cost;
+    private final int durationMonths;
+
+    public MembershipPurchase(int memberId, String type, String description, BigDecimal cost, int durationMonths) {
+        this.memberId = memberId;
+        this.type = type;
+        this.description = description;
+        this.cost = cost;
+        this.durationMonths = durationMonths;
+    }
+
+    public int getMemberId() {
+        return memberId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getCost() {
+        return cost;
+    }
+
+    public int getDurationMonths() {
+        return durationMonths;
+    }
+
+    @Override
+    public String toString() {
+        return "MembershipPurchase{" +
+                "memberId=" + memberId +
+                ", type='" + type + '\'' +
+                ", cost=" + cost +
+                ", durationMonths=" + durationMonths +
+                '}';
+    }
+}
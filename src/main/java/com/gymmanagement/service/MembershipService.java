@@ -1,12 +1,21 @@
 package com.gymmanagement.service;
 
 import com.gymmanagement.dao.MembershipDAO;
+import com.gymmanagement.dao.UserDAO;
 import com.gymmanagement.model.Membership;
+import com.gymmanagement.util.DataAccessException;
 import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.UnitOfWork;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -17,19 +26,35 @@ import java.util.logging.Logger;
  */
 public class MembershipService {
 
+    // Rows written per transaction by a batch purchase that reports failures per entry
+    private static final int PER_ENTRY_CHUNK_SIZE = 500;
+
     private final MembershipDAO membershipDAO;
+    private final UserDAO userDAO;
+    private final ActiveMembershipIndex activeMembershipIndex;
     private static final Logger LOGGER = LoggerUtil.getLogger();
 
     public MembershipService() {
-        this.membershipDAO = new MembershipDAO();
+        this(new MembershipDAO(), new UserDAO(), ActiveMembershipIndex.getDefault());
     }
 
     public MembershipService(MembershipDAO membershipDAO) {
+        this(membershipDAO, new UserDAO(), ActiveMembershipIndex.getDefault());
+    }
+
+    public MembershipService(MembershipDAO membershipDAO, ActiveMembershipIndex activeMembershipIndex) {
+        this(membershipDAO, new UserDAO(), activeMembershipIndex);
+    }
+
+    public MembershipService(MembershipDAO membershipDAO, UserDAO userDAO,
+                             ActiveMembershipIndex activeMembershipIndex) {
         this.membershipDAO = membershipDAO;
+        this.userDAO = userDAO;
+        this.activeMembershipIndex = activeMembershipIndex;
     }
 
     /**
-     * Purchases a new membership for a user.
+     * Purchases a new membership for a user. The purchase runs in a single transaction.
      *
      * @param memberId    the ID of the member or trainer buying the membership
      * @param type        membership type (e.g. Monthly, Annual)
@@ -57,8 +82,22 @@ public class MembershipService {
                 endDate
         );
 
-        Membership created = membershipDAO.createMembership(membership);
+        Membership created;
+        try {
+            created = UnitOfWork.inTransaction(() -> {
+                Membership inserted = membershipDAO.createMembership(membership);
+                if (inserted == null) {
+                    UnitOfWork.setRollbackOnly();
+                }
+                return inserted;
+            });
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Membership purchase transaction failed for memberId=" + memberId, e);
+            created = null;
+        }
+
         if (created != null) {
+            activeMembershipIndex.onMembershipPurchased(created);
             LOGGER.info("Membership purchased: memberId=" + memberId +
                     ", type=" + type + ", cost=" + cost);
         } else {
@@ -67,6 +106,114 @@ public class MembershipService {
         return created;
     }
 
+    /**
+     * Purchases many memberships at once, e.g. for a corporate deal. All memberships start today.
+     * <p>
+     * Entries are validated up front (one query checks every member ID) and then written with
+     * multi-row inserts, which is much faster than calling
+     * {@link #purchaseMembership(int, String, String, BigDecimal, int)} once per entry.
+     * <ul>
+     *     <li>With {@code allOrNothing}, the whole batch is written in one transaction, and nothing
+     *     is written if any entry is invalid or the write fails.</li>
+     *     <li>Otherwise valid entries are written in chunks of {@value #PER_ENTRY_CHUNK_SIZE}, each in
+     *     its own transaction; if a chunk fails, its entries are retried one at a time so only the
+     *     entries that really fail are reported.</li>
+     * </ul>
+     * Do not call this inside {@link UnitOfWork#inTransaction}: a failed chunk would abort the
+     * caller's transaction.
+     *
+     * @param purchases    the memberships to purchase
+     * @param allOrNothing whether to write either every entry or none
+     * @return which entries were created and why the others were not
+     */
+    public BatchPurchaseResult purchaseMemberships(List<MembershipPurchase> purchases, boolean allOrNothing) {
+        BatchPurchaseResult result = new BatchPurchaseResult();
+        LocalDate startDate = LocalDate.now();
+
+        Set<Integer> memberIds = new HashSet<>();
+        for (MembershipPurchase purchase : purchases) {
+            memberIds.add(purchase.getMemberId());
+        }
+        Set<Integer> existingMemberIds = userDAO.findExistingUserIds(memberIds);
+        if (existingMemberIds == null) {
+            for (int i = 0; i < purchases.size(); i++) {
+                result.entryFailed(i, purchases.get(i), "Could not check the member. Please try again later.");
+            }
+            return result;
+        }
+
+        List<Membership> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < purchases.size(); i++) {
+            MembershipPurchase purchase = purchases.get(i);
+            String problem = validatePurchase(purchase, existingMemberIds);
+            if (problem != null) {
+                result.entryFailed(i, purchase, problem);
+            } else {
+                valid.add(new Membership(0, purchase.getType(), purchase.getDescription(), purchase.getCost(),
+                        purchase.getMemberId(), startDate, startDate.plusMonths(purchase.getDurationMonths())));
+                validIndexes.add(i);
+            }
+        }
+
+        if (allOrNothing) {
+            String reason = null;
+            if (!result.isAllCreated()) {
+                reason = "Not saved: another entry in the batch was rejected";
+            } else if (membershipDAO.createMemberships(valid) == null) {
+                reason = "Not saved: the batch could not be written";
+            }
+            if (reason != null) {
+                for (int index : validIndexes) {
+                    result.entryFailed(index, purchases.get(index), reason);
+                }
+            } else {
+                result.entriesCreated(valid);
+            }
+        } else {
+            for (int from = 0; from < valid.size(); from += PER_ENTRY_CHUNK_SIZE) {
+                int to = Math.min(from + PER_ENTRY_CHUNK_SIZE, valid.size());
+                List<Membership> chunk = valid.subList(from, to);
+                if (membershipDAO.createMemberships(chunk) != null) {
+                    result.entriesCreated(chunk);
+                    continue;
+                }
+                for (int i = from; i < to; i++) {
+                    Membership created = membershipDAO.createMembership(valid.get(i));
+                    if (created != null) {
+                        result.entriesCreated(List.of(created));
+                    } else {
+                        int index = validIndexes.get(i);
+                        result.entryFailed(index, purchases.get(index), "Could not be saved");
+                    }
+                }
+            }
+        }
+
+        for (Membership created : result.getCreated()) {
+            activeMembershipIndex.onMembershipPurchased(created);
+        }
+        LOGGER.info("Batch membership purchase: " + result.getCreated().size() + " created, " +
+                result.getFailures().size() + " failed (" + (allOrNothing ? "all or nothing" : "per entry") + ")");
+        return result;
+    }
+
+    private String validatePurchase(MembershipPurchase purchase, Set<Integer> existingMemberIds) {
+        if (!existingMemberIds.contains(purchase.getMemberId())) {
+            return "Unknown member ID";
+        }
+        if (purchase.getType() == null || purchase.getType().isBlank()) {
+            return "Membership type is required";
+        }
+        if (purchase.getCost() == null || purchase.getCost().signum() < 0) {
+            return "Cost must be zero or more";
+        }
+        if (purchase.getDurationMonths() < 1) {
+            return "Duration must be at least one month";
+        }
+        return null;
+    }
+
     /**
      * Returns all memberships for a specific member.
      *
@@ -95,6 +242,15 @@ public class MembershipService {
         return membershipDAO.getTotalRevenue();
     }
 
+    /**
+     * Returns the revenue per membership type.
+     *
+     * @return revenue keyed by membership type
+     */
+    public Map<String, BigDecimal> getRevenueByType() {
+        return membershipDAO.getRevenueByType();
+    }
+
     /**
      * Calculates the total amount a given member has spent on memberships.
      *
@@ -102,13 +258,50 @@ public class MembershipService {
      * @return total membership expenses
      */
     public BigDecimal getTotalExpensesForMember(int memberId) {
-        List<Membership> memberships = membershipDAO.getMembershipsByMemberId(memberId);
-        BigDecimal total = BigDecimal.ZERO;
-        for (Membership m : memberships) {
-            if (m.getMembershipCost() != null) {
-                total = total.add(m.getMembershipCost());
-            }
-        }
-        return total;
+        return membershipDAO.getTotalCostForMember(memberId);
+    }
+
+    /**
+     * Calculates the total membership expenses of several members with a single query,
+     * e.g. for billing reconciliation.
+     *
+     * @param memberIds the IDs of the members
+     * @return total expenses per member ID ({@link BigDecimal#ZERO} for members without memberships)
+     */
+    public Map<Integer, BigDecimal> getTotalExpensesForMembers(List<Integer> memberIds) {
+        return membershipDAO.getTotalCostByMember(memberIds);
+    }
+
+    /**
+     * Calculates the total membership expenses of every member with a single query.
+     *
+     * @return total expenses per member ID, for members with at least one membership
+     */
+    public Map<Integer, BigDecimal> getTotalExpensesForAllMembers() {
+        return membershipDAO.getTotalCostForAllMembers();
+    }
+
+    /**
+     * Returns the IDs of the members who had an active membership on a given day.
+     *
+     * @param date the day
+     * @return member IDs in ascending order
+     * @throws DataAccessException if the membership data could not be loaded
+     */
+    public List<Integer> getActiveMemberIds(LocalDate date) {
+        return activeMembershipIndex.getActiveMemberIds(date);
+    }
+
+    /**
+     * Returns the number of members with an active membership on each day of a range,
+     * e.g. for daily active-member charts and churn reports.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (inclusive)
+     * @return active member count per day, in date order
+     * @throws DataAccessException if the membership data could not be loaded
+     */
+    public SortedMap<LocalDate, Integer> getDailyActiveMemberCounts(LocalDate from, LocalDate to) {
+        return activeMembershipIndex.getDailyActiveCounts(from, to);
     }
 }
@@ -0,0 +1,317 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.LoggerUtil;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated, bounded thread pool.
+ * <p>
+ * BCrypt is deliberately CPU-heavy, so running it on caller threads lets a burst of logins
+ * occupy every core. Here the work is limited to one thread per core and a fixed-size queue;
+ * when the queue is full new requests are rejected immediately with a
+ * {@link ServiceBusyException} instead of piling up, so other work (browsing classes,
+ * purchases) keeps running during a login storm.
+ * <p>
+ * The cost factor for new hashes is either set explicitly ({@code gym.bcrypt.cost}) or
+ * calibrated at startup so that one verification takes roughly {@code gym.bcrypt.targetVerifyMs}
+ * on the current machine. Stored hashes with a lower cost are upgraded transparently at the
+ * next successful login (see {@link #needsRehash(String)}).
+ */
+public class PasswordHasher {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    /**
+     * BCrypt cost factor used when calibration is disabled.
+     */
+    public static final int DEFAULT_COST = 12;
+
+    /**
+     * Lowest cost factor calibration will pick, whatever the hardware.
+     */
+    public static final int MIN_COST = 10;
+
+    /**
+     * Highest cost factor calibration will pick.
+     */
+    public static final int MAX_COST = 16;
+
+    private static final int CALIBRATION_COST = 8;
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private static volatile PasswordHasher defaultInstance;
+
+    private final ThreadPoolExecutor executor;
+    private final int cost;
+
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder verifyCount = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates a hasher with its own thread pool.
+     *
+     * @param threads    number of hashing threads (normally the number of cores)
+     * @param queueLimit how many requests may wait for a free thread before new ones are rejected
+     * @param cost       BCrypt cost factor for new hashes
+     */
+    public PasswordHasher(int threads, int queueLimit, int cost) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueLimit)),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.cost = cost;
+    }
+
+    /**
+     * Returns the application-wide hasher, configured from {@code gym.bcrypt.threads}
+     * (default: number of cores) and {@code gym.bcrypt.queueLimit} (default: 4 per thread).
+     * The cost factor is {@code gym.bcrypt.cost} if set, otherwise it is calibrated against
+     * {@code gym.bcrypt.targetVerifyMs} (default 250 ms) the first time this is called.
+     *
+     * @return the shared {@link PasswordHasher}
+     */
+    public static PasswordHasher getDefault() {
+        if (defaultInstance == null) {
+            synchronized (PasswordHasher.class) {
+                if (defaultInstance == null) {
+                    int threads = AppConfig.getInt("gym.bcrypt.threads", Runtime.getRuntime().availableProcessors());
+                    int queueLimit = AppConfig.getInt("gym.bcrypt.queueLimit", threads * 4);
+                    int cost = AppConfig.getInt("gym.bcrypt.cost", -1);
+                    if (cost < 0) {
+                        cost = calibrateCost(AppConfig.getLong("gym.bcrypt.targetVerifyMs", 250L));
+                    }
+                    defaultInstance = new PasswordHasher(threads, queueLimit, cost);
+                    LOGGER.info("Password hasher started with " + threads + " threads, queue limit " +
+                            queueLimit + ", cost " + cost);
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Measures BCrypt on this machine and returns the cost factor whose verification time is
+     * closest to the target. Each extra cost step doubles the work, so the result is
+     * extrapolated from a few cheap measurements and clamped to
+     * [{@link #MIN_COST}, {@link #MAX_COST}].
+     *
+     * @param targetMillis desired time for one verification
+     * @return the calibrated cost factor
+     */
+    public static int calibrateCost(long targetMillis) {
+        String salt = BCrypt.gensalt(CALIBRATION_COST);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-password", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double measuredMillis = Math.max(best / 1_000_000.0, 0.001);
+        int cost = CALIBRATION_COST + (int) Math.round(Math.log(targetMillis / measuredMillis) / Math.log(2));
+        cost = Math.max(MIN_COST, Math.min(MAX_COST, cost));
+
+        LOGGER.info(String.format("BCrypt calibration: cost %d took %.1f ms; target %d ms -> using cost %d",
+                CALIBRATION_COST, measuredMillis, targetMillis, cost));
+        return cost;
+    }
+
+    /**
+     * Returns the cost factor encoded in a BCrypt hash such as {@code $2a$12$...}.
+     *
+     * @param hashed a BCrypt hash
+     * @return the cost factor, or {@code -1} if the hash is not in BCrypt format
+     */
+    public static int costOf(String hashed) {
+        if (hashed == null || hashed.length() < 7 || hashed.charAt(0) != '$' || hashed.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hashed.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the cost factor used for new hashes.
+     *
+     * @return the BCrypt cost factor
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns whether a stored hash was made with a lower cost than the current one and should
+     * be replaced after the next successful verification. Hashes are never downgraded: the
+     * calibrated cost can come out lower on a busy or slower instance, and rewriting hashes
+     * whenever it changes would weaken them and keep rewriting them back and forth.
+     *
+     * @param hashed the stored hash
+     * @return {@code true} if the hash should be re-computed
+     */
+    public boolean needsRehash(String hashed) {
+        return costOf(hashed) < cost;
+    }
+
+    /**
+     * Re-hashes a password with the current cost in the background and hands the new hash to
+     * {@code onHashed}. If the hashing pool is busy the rehash is simply skipped; it will be
+     * attempted again on the next login.
+     *
+     * @param plainPassword the verified plain-text password
+     * @param onHashed      receives the new hash on a hashing thread
+     */
+    public void rehashInBackground(String plainPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                String hashed = BCrypt.hashpw(plainPassword, BCrypt.gensalt(cost));
+                hashNanos.add(System.nanoTime() - start);
+                hashCount.increment();
+                onHashed.accept(hashed);
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.fine("Skipping password rehash: hashing queue is full");
+        }
+    }
+
+    /**
+     * Hashes a plain-text password with a fresh salt.
+     *
+     * @param plainPassword the password to hash
+     * @return the BCrypt hash
+     * @throws ServiceBusyException if too many hashing requests are already waiting
+     */
+    public String hash(String plainPassword) {
+        return run(() -> {
+            long start = System.nanoTime();
+            String hashed = BCrypt.hashpw(plainPassword, BCrypt.gensalt(cost));
+            hashNanos.add(System.nanoTime() - start);
+            hashCount.increment();
+            return hashed;
+        });
+    }
+
+    /**
+     * Hashes many passwords in parallel on a caller-supplied pool, with the current cost.
+     * <p>
+     * Meant for bulk jobs such as imports: they bring their own threads so they never fill
+     * the shared queue that interactive logins and registrations depend on.
+     *
+     * @param plainPasswords the passwords to hash
+     * @param pool           the threads to hash on
+     * @return the hashes, in the same order as {@code plainPasswords}
+     * @throws ServiceBusyException if interrupted while waiting for the hashes
+     */
+    public List<String> hashAll(List<String> plainPasswords, ExecutorService pool) {
+        List<Future<String>> futures = new ArrayList<>(plainPasswords.size());
+        for (String plainPassword : plainPasswords) {
+            futures.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                String hashed = BCrypt.hashpw(plainPassword, BCrypt.gensalt(cost));
+                hashNanos.add(System.nanoTime() - start);
+                hashCount.increment();
+                return hashed;
+            }));
+        }
+
+        List<String> hashes = new ArrayList<>(futures.size());
+        try {
+            for (Future<String> future : futures) {
+                hashes.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for password hashing.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+        return hashes;
+    }
+
+    /**
+     * Checks a plain-text password against a stored BCrypt hash.
+     *
+     * @param plainPassword the password to check
+     * @param hashed        the stored hash
+     * @return {@code true} if the password matches
+     * @throws ServiceBusyException if too many hashing requests are already waiting
+     */
+    public boolean verify(String plainPassword, String hashed) {
+        return run(() -> {
+            long start = System.nanoTime();
+            boolean matches = BCrypt.checkpw(plainPassword, hashed);
+            verifyNanos.add(System.nanoTime() - start);
+            verifyCount.increment();
+            return matches;
+        });
+    }
+
+    /**
+     * Returns a snapshot of the timing counters.
+     *
+     * @return current {@link HashingStats}
+     */
+    public HashingStats getStats() {
+        return new HashingStats(hashCount.sum(), hashNanos.sum(), verifyCount.sum(), verifyNanos.sum(),
+                queueWaitNanos.sum(), rejectedCount.sum(), executor.getQueue().size(), executor.getActiveCount());
+    }
+
+    private <T> T run(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitNanos.add(System.nanoTime() - submitted);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            LOGGER.warning("Password hashing request rejected: hashing queue is full");
+            throw new ServiceBusyException("The system is busy right now. Please try again in a moment.", e);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for password hashing.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.MonthlyRevenue;
+import com.gymmanagement.dao.RevenueRollupDAO;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Builds revenue reports broken down by month and membership type.
+ * <p>
+ * Months that have ended never change unless a membership is backdated or deleted, so each
+ * one is summarised once (on first use) and afterwards read from the rollup table. Only the
+ * current month is computed live, which keeps multi-year reports fast no matter how much
+ * membership history there is.
+ */
+public class RevenueReportService {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private final RevenueRollupDAO rollupDAO;
+
+    public RevenueReportService() {
+        this.rollupDAO = new RevenueRollupDAO();
+    }
+
+    public RevenueReportService(RevenueRollupDAO rollupDAO) {
+        this.rollupDAO = rollupDAO;
+    }
+
+    /**
+     * Returns revenue per month and membership type, by membership start date.
+     *
+     * @param from first month of the report (inclusive)
+     * @param to   last month of the report (inclusive)
+     * @return one entry per month and type with revenue, ordered by month and type;
+     * months without revenue are omitted
+     */
+    public List<MonthlyRevenue> getMonthlyRevenue(YearMonth from, YearMonth to) {
+        List<MonthlyRevenue> report = new ArrayList<>();
+        YearMonth current = YearMonth.now();
+
+        YearMonth firstMonth = rollupDAO.findFirstMembershipMonth();
+        if (firstMonth == null) {
+            return report;
+        }
+        YearMonth closedFrom = from.isBefore(firstMonth) ? firstMonth : from;
+        YearMonth closedTo = to.isBefore(current) ? to : current.minusMonths(1);
+
+        if (!closedFrom.isAfter(closedTo)) {
+            Set<YearMonth> rolledUp = rollupDAO.findRolledUpMonths(closedFrom, closedTo);
+            int newlyRolledUp = 0;
+            for (YearMonth month = closedFrom; !month.isAfter(closedTo); month = month.plusMonths(1)) {
+                if (rolledUp.contains(month)) {
+                    continue;
+                }
+                if (rollupDAO.rollUpMonth(month)) {
+                    newlyRolledUp++;
+                } else {
+                    // Still answer correctly, just without the shortcut
+                    report.addAll(rollupDAO.computeRevenue(month.atDay(1), month.plusMonths(1).atDay(1)));
+                }
+            }
+            if (newlyRolledUp > 0) {
+                LOGGER.info("Rolled up revenue for " + newlyRolledUp + " month(s) between " + closedFrom + " and " + closedTo);
+            }
+            report.addAll(rollupDAO.getRolledUpRevenue(closedFrom, closedTo));
+        }
+
+        if (!current.isBefore(from) && !current.isAfter(to)) {
+            report.addAll(rollupDAO.computeRevenue(current.atDay(1), current.plusMonths(1).atDay(1)));
+        }
+
+        report.sort(Comparator.comparing(MonthlyRevenue::getMonth).thenComparing(MonthlyRevenue::getMembershipType));
+        return report;
+    }
+}
@@ -0,0 +1,29 @@
+package com.gymmanagement.service;
+
+/**
+ * Thrown when a workout class would overlap another class of the same trainer.
+ * <p>
+ * Nothing was written; the app layer should show the message and let the trainer pick
+ * another time.
+ */
+public class ScheduleConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int conflictingClassId;
+
+    public ScheduleConflictException(String message, int conflictingClassId) {
+        super(message);
+        this.conflictingClassId = conflictingClassId;
+    }
+
+    /**
+     * Returns the ID of the class that is in the way.
+     *
+     * @return the conflicting class's ID, or 0 if the database refused the write and the class
+     * could not be identified
+     */
+    public int getConflictingClassId() {
+        return conflictingClassId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.gymmanagement.service;
+
+/**
+ * Thrown when a service rejects a request because it is temporarily overloaded.
+ * <p>
+ * The request was not processed and can safely be retried a little later,
+ * so the app layer should show the message and ask the user to try again.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+
+    public ServiceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
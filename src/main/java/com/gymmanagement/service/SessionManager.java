@@ -0,0 +1,210 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.model.Session;
+import com.gymmanagement.model.User;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.TimingWheel;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Issues and checks login session tokens.
+ * <p>
+ * After a successful password check the caller gets an opaque random token. Later requests
+ * present the token and are authenticated with a single hash map lookup instead of another
+ * BCrypt verification. Sessions expire after a period of inactivity; expiry is driven by a
+ * {@link TimingWheel}, so creating a session and expiring one are both O(1) regardless of
+ * how many sessions are open.
+ * <p>
+ * Sessions live in memory only, so they end when the application restarts.
+ */
+public class SessionManager {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static final int TOKEN_BYTES = 32;
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SIZE = 512;
+
+    private static volatile SessionManager defaultInstance;
+
+    private final long idleTimeoutMillis;
+    private final ConcurrentHashMap<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    private final TimingWheel<SessionEntry> expiryWheel;
+    private final SecureRandom random = new SecureRandom();
+
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+
+    /**
+     * Creates a session manager.
+     *
+     * @param idleTimeoutMillis how long a session may go unused before it expires
+     */
+    public SessionManager(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.expiryWheel = new TimingWheel<>("session-expiry", TICK_MILLIS, WHEEL_SIZE, this::onTimeout);
+    }
+
+    /**
+     * Returns the application-wide session manager. The idle timeout is read from
+     * {@code gym.session.idleTimeoutMinutes} (default 30).
+     *
+     * @return the shared {@link SessionManager}
+     */
+    public static SessionManager getDefault() {
+        if (defaultInstance == null) {
+            synchronized (SessionManager.class) {
+                if (defaultInstance == null) {
+                    long minutes = AppConfig.getLong("gym.session.idleTimeoutMinutes", 30L);
+                    defaultInstance = new SessionManager(TimeUnit.MINUTES.toMillis(minutes));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Opens a new session for an already authenticated user.
+     *
+     * @param user the logged-in user
+     * @return the new {@link Session}, including its token
+     */
+    public Session createSession(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Session session = new Session(token, user, LocalDateTime.now());
+        SessionEntry entry = new SessionEntry(session);
+        sessions.put(token, entry);
+        entry.timeout = expiryWheel.schedule(entry, idleTimeoutMillis);
+        createdCount.increment();
+
+        LOGGER.fine("Session started for username: " + user.getUsername());
+        return session;
+    }
+
+    /**
+     * Returns the user a token belongs to and marks the session as recently used.
+     *
+     * @param token the session token
+     * @return the session's {@link User}, or {@code null} if the token is unknown or expired
+     */
+    public User authenticate(String token) {
+        if (token == null) {
+            return null;
+        }
+        SessionEntry entry = sessions.get(token);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - entry.lastAccessMillis >= idleTimeoutMillis) {
+            // The wheel fires up to a tick late; don't accept a session that is already over
+            expire(entry);
+            return null;
+        }
+        entry.lastAccessMillis = now;
+        return entry.session.getUser();
+    }
+
+    /**
+     * Ends a session (logout).
+     *
+     * @param token the session token
+     * @return {@code true} if a session was ended
+     */
+    public boolean invalidate(String token) {
+        if (token == null) {
+            return false;
+        }
+        SessionEntry entry = sessions.remove(token);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.timeout != null) {
+            expiryWheel.cancel(entry.timeout);
+        }
+        LOGGER.info("Session ended for username: " + entry.session.getUser().getUsername());
+        return true;
+    }
+
+    /**
+     * Ends every session belonging to a user, e.g. after the user is deleted.
+     * Runs in time linear in the number of open sessions.
+     *
+     * @param userId the user's ID
+     */
+    public void invalidateUser(int userId) {
+        for (SessionEntry entry : sessions.values()) {
+            if (entry.session.getUser().getUserId() == userId) {
+                invalidate(entry.session.getToken());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of sessions that are currently open.
+     *
+     * @return open session count
+     */
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns a one-line summary of session counters for the metrics screen.
+     *
+     * @return session statistics
+     */
+    public String getStatsSummary() {
+        return "Sessions{active=" + sessions.size() +
+                ", created=" + createdCount.sum() +
+                ", expired=" + expiredCount.sum() + '}';
+    }
+
+    /**
+     * Called by the wheel when a session's timeout is due. Sessions that were used since the
+     * timeout was scheduled are simply rescheduled for the rest of their idle period.
+     */
+    private void onTimeout(SessionEntry entry) {
+        long idleFor = System.currentTimeMillis() - entry.lastAccessMillis;
+        if (idleFor >= idleTimeoutMillis) {
+            expire(entry);
+        } else if (sessions.get(entry.session.getToken()) == entry) {
+            entry.timeout = expiryWheel.schedule(entry, idleTimeoutMillis - idleFor);
+        }
+    }
+
+    private void expire(SessionEntry entry) {
+        if (sessions.remove(entry.session.getToken(), entry)) {
+            if (entry.timeout != null) {
+                expiryWheel.cancel(entry.timeout);
+            }
+            expiredCount.increment();
+            LOGGER.info("Session expired for username: " + entry.session.getUser().getUsername());
+        }
+    }
+
+    /**
+     * A session plus its last-access time and pending expiry timeout.
+     */
+    private static final class SessionEntry {
+        private final Session session;
+        private volatile long lastAccessMillis;
+        private volatile TimingWheel.Timeout<SessionEntry> timeout;
+
+        private SessionEntry(Session session) {
+            this.session = session;
+            this.lastAccessMillis = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.WorkoutClassDAO;
+import com.gymmanagement.model.WorkoutClass;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.DataAccessException;
+import com.gymmanagement.util.IntervalTree;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Per-trainer index of the time slots taken by their workout classes, used to stop a trainer
+ * from being scheduled for two classes at once.
+ * <p>
+ * A class occupies {@code [scheduleTime, scheduleTime + duration)}, so back-to-back classes are
+ * fine. Each trainer's slots are kept in an {@link IntervalTree}, loaded from the database the
+ * first time the trainer schedules a class and updated on every write made through
+ * {@link #schedule(WorkoutClass, BooleanSupplier)}, so a conflict check costs
+ * {@code O(log n)} instead of a query over the trainer's classes. Checks and writes for the same
+ * trainer are serialized, so two concurrent requests cannot both take the same slot.
+ * <p>
+ * The index only knows about writes made by this application instance. Each trainer's schedule
+ * is therefore reloaded when it is older than {@code gym.schedule.reloadSeconds} (default 300),
+ * and the database has the final say: its exclusion constraint rejects an overlapping class
+ * the index missed, which is reported as a {@link ScheduleConflictException} as well.
+ */
+public class TrainerScheduleIndex {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    /** SQLSTATE of a violated exclusion constraint. */
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private static volatile TrainerScheduleIndex defaultInstance;
+
+    private final WorkoutClassDAO workoutClassDAO;
+    private final long reloadNanos;
+    private final ConcurrentHashMap<Integer, TrainerSchedule> schedulesByTrainer = new ConcurrentHashMap<>();
+
+    private final LongAdder conflictsRejected = new LongAdder();
+    private final LongAdder conflictsFromDatabase = new LongAdder();
+
+    public TrainerScheduleIndex(WorkoutClassDAO workoutClassDAO, long reloadSeconds) {
+        this.workoutClassDAO = workoutClassDAO;
+        this.reloadNanos = TimeUnit.SECONDS.toNanos(reloadSeconds);
+    }
+
+    /**
+     * Returns the application-wide index.
+     *
+     * @return the shared {@link TrainerScheduleIndex}
+     */
+    public static TrainerScheduleIndex getDefault() {
+        if (defaultInstance == null) {
+            synchronized (TrainerScheduleIndex.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new TrainerScheduleIndex(new WorkoutClassDAO(),
+                            Math.max(1, AppConfig.getLong("gym.schedule.reloadSeconds", 300L)));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Writes a new or changed class if its time slot is free in its trainer's schedule, and
+     * records the slot once the write succeeded. The class's own previous slot does not count as
+     * a conflict.
+     *
+     * @param workoutClass the class to schedule; its ID is read after the write, so it may be
+     *                     assigned by {@code write}
+     * @param write        performs the database write and tells whether it succeeded
+     * @return {@code true} if the class was written; {@code false} if the write failed or the
+     * trainer's schedule could not be loaded
+     * @throws ScheduleConflictException if the class overlaps another class of the trainer, as
+     *                                   found by the index or by the database
+     */
+    public boolean schedule(WorkoutClass workoutClass, BooleanSupplier write) {
+        TrainerSchedule schedule = scheduleFor(workoutClass.getTrainerId());
+        if (schedule == null) {
+            return false;
+        }
+        long low = toMinutes(workoutClass.getScheduleTime());
+        long high = low + workoutClass.getDurationMinutes();
+
+        synchronized (schedule) {
+            IntervalTree.Interval<Integer> conflict = schedule.findConflict(workoutClass.getWorkoutClassId(), low, high);
+            if (conflict != null) {
+                conflictsRejected.increment();
+                throw conflictWith(conflict);
+            }
+            try {
+                if (!write.getAsBoolean()) {
+                    return false;
+                }
+            } catch (DataAccessException e) {
+                if (!EXCLUSION_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                // The slot was taken elsewhere since the schedule was loaded
+                conflictsFromDatabase.increment();
+                schedulesByTrainer.remove(workoutClass.getTrainerId(), schedule);
+                throw conflictAfterReload(workoutClass, low, high);
+            }
+            schedule.put(workoutClass.getWorkoutClassId(), low, high);
+            return true;
+        }
+    }
+
+    /**
+     * Frees the slot of a deleted class.
+     *
+     * @param trainerId      the class's trainer
+     * @param workoutClassId the class
+     */
+    public void remove(int trainerId, int workoutClassId) {
+        TrainerSchedule schedule = schedulesByTrainer.get(trainerId);
+        if (schedule != null) {
+            synchronized (schedule) {
+                schedule.remove(workoutClassId);
+            }
+        }
+    }
+
+    /**
+     * Returns a one-line summary for the metrics screen.
+     *
+     * @return schedule index statistics
+     */
+    public String getStatsSummary() {
+        return "TrainerSchedules{loadedTrainers=" + schedulesByTrainer.size() +
+                ", conflictsRejected=" + conflictsRejected.sum() +
+                ", conflictsFromDatabase=" + conflictsFromDatabase.sum() + '}';
+    }
+
+    /**
+     * Returns a trainer's schedule, loading it the first time and again once it is older than
+     * the reload interval.
+     *
+     * @return the schedule, or {@code null} if it could not be loaded
+     */
+    private TrainerSchedule scheduleFor(int trainerId) {
+        TrainerSchedule schedule = schedulesByTrainer.get(trainerId);
+        if (schedule != null && System.nanoTime() - schedule.loadedAtNanos < reloadNanos) {
+            return schedule;
+        }
+        List<WorkoutClass> classes = workoutClassDAO.findTrainerSchedule(trainerId);
+        if (classes == null) {
+            LOGGER.warning("Schedule of trainerId=" + trainerId + " could not be loaded");
+            return null;
+        }
+        TrainerSchedule loaded = new TrainerSchedule(System.nanoTime());
+        for (WorkoutClass workoutClass : classes) {
+            long low = toMinutes(workoutClass.getScheduleTime());
+            loaded.put(workoutClass.getWorkoutClassId(), low, low + workoutClass.getDurationMinutes());
+        }
+        // If another thread got there first, use its copy so that all writers share one lock
+        return schedulesByTrainer.compute(trainerId, (id, existing) -> existing == schedule ? loaded : existing);
+    }
+
+    /**
+     * Builds the exception for a conflict the database found, naming the class in the way if
+     * the reloaded schedule shows it.
+     */
+    private ScheduleConflictException conflictAfterReload(WorkoutClass workoutClass, long low, long high) {
+        TrainerSchedule reloaded = scheduleFor(workoutClass.getTrainerId());
+        if (reloaded != null) {
+            synchronized (reloaded) {
+                IntervalTree.Interval<Integer> conflict =
+                        reloaded.findConflict(workoutClass.getWorkoutClassId(), low, high);
+                if (conflict != null) {
+                    return conflictWith(conflict);
+                }
+            }
+        }
+        return new ScheduleConflictException("This overlaps another of your classes.", 0);
+    }
+
+    private static ScheduleConflictException conflictWith(IntervalTree.Interval<Integer> conflict) {
+        return new ScheduleConflictException("This overlaps your class " + conflict.getValue() + " (" +
+                toDateTime(conflict.getLow()) + " to " + toDateTime(conflict.getHigh()) + ").",
+                conflict.getValue());
+    }
+
+    private static long toMinutes(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime toDateTime(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Slots of one trainer's classes. Guarded by its own monitor.
+     */
+    private static final class TrainerSchedule {
+        private final IntervalTree<Integer> slots = new IntervalTree<>();
+        /** Slot of each class as {low, high}, to find it again on update or delete. */
+        private final Map<Integer, long[]> slotByClass = new HashMap<>();
+        private final long loadedAtNanos;
+
+        private TrainerSchedule(long loadedAtNanos) {
+            this.loadedAtNanos = loadedAtNanos;
+        }
+
+        /**
+         * Returns a slot overlapping {@code [low, high)} that belongs to another class, if any.
+         */
+        private IntervalTree.Interval<Integer> findConflict(int workoutClassId, long low, long high) {
+            long[] own = slotByClass.get(workoutClassId);
+            if (own != null) {
+                slots.remove(own[0], own[1], workoutClassId);
+            }
+            try {
+                if (!slots.overlapsAny(low, high)) {
+                    return null;
+                }
+                return slots.findOverlapping(low, high).get(0);
+            } finally {
+                if (own != null) {
+                    slots.add(own[0], own[1], workoutClassId);
+                }
+            }
+        }
+
+        private void put(int workoutClassId, long low, long high) {
+            remove(workoutClassId);
+            slots.add(low, high, workoutClassId);
+            slotByClass.put(workoutClassId, new long[]{low, high});
+        }
+
+        private void remove(int workoutClassId) {
+            long[] slot = slotByClass.remove(workoutClassId);
+            if (slot != null) {
+                slots.remove(slot[0], slot[1], workoutClassId);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.gymmanagement.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk user import: how many rows were read and imported, and why each
+ * of the remaining rows was rejected.
+ */
+public class UserImportReport {
+
+    private int totalRows;
+    private int importedCount;
+    private final List<RowFailure> failures = new ArrayList<>();
+
+    void rowRead() {
+        totalRows++;
+    }
+
+    void rowsImported(int count) {
+        importedCount += count;
+    }
+
+    void rowFailed(int lineNumber, String username, String reason) {
+        failures.add(new RowFailure(lineNumber, username, reason));
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    /**
+     * Returns the rejected rows, in the order they were found.
+     *
+     * @return failed rows
+     */
+    public List<RowFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    @Override
+    public String toString() {
+        return "UserImportReport{" +
+                "totalRows=" + totalRows +
+                ", imported=" + importedCount +
+                ", failed=" + failures.size() +
+                '}';
+    }
+
+    /**
+     * One rejected input row.
+     */
+    public static class RowFailure {
+        private final int lineNumber;
+        private final String username;
+        private final String reason;
+
+        public RowFailure(int lineNumber, String username, String reason) {
+            this.lineNumber = lineNumber;
+            this.username = username;
+            this.reason = reason;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + " (" + username + "): " + reason;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.UserDAO;
+import com.gymmanagement.model.Admin;
+import com.gymmanagement.model.Member;
+import com.gymmanagement.model.Trainer;
+import com.gymmanagement.model.User;
+import com.gymmanagement.model.UserRole;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Registers many users at once from CSV, e.g. when onboarding a new gym location.
+ * <p>
+ * The input needs a header row naming its columns; {@code username}, {@code password} and
+ * {@code email} are required, {@code phone}, {@code address} and {@code role} (default
+ * {@code MEMBER}) are optional. Fields may be quoted, but a record must fit on one line.
+ * <p>
+ * Every row is validated and checked for duplicate usernames in memory first. Valid rows are
+ * then processed in batches: passwords are hashed in parallel on a dedicated pool, and each
+ * batch is written with a single bulk insert ({@link UserDAO#createUsersIgnoringDuplicates(List)}).
+ * Bad rows are reported individually and never stop the rest of the file from loading.
+ */
+public class UserImportService {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private final UserDAO userDAO;
+    private final PasswordHasher passwordHasher;
+    private final int batchSize;
+    private final int hashThreads;
+
+    public UserImportService() {
+        this(new UserDAO(), PasswordHasher.getDefault());
+    }
+
+    public UserImportService(UserDAO userDAO, PasswordHasher passwordHasher) {
+        this.userDAO = userDAO;
+        this.passwordHasher = passwordHasher;
+        this.batchSize = Math.max(1, AppConfig.getInt("gym.import.batchSize", 2_000));
+        this.hashThreads = Math.max(1, AppConfig.getInt("gym.import.hashThreads",
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Imports users from CSV.
+     *
+     * @param in the CSV input, starting with a header row
+     * @return a report of imported and rejected rows
+     * @throws IOException if the input cannot be read
+     */
+    public UserImportReport importUsers(BufferedReader in) throws IOException {
+        UserImportReport report = new UserImportReport();
+
+        String headerLine = in.readLine();
+        if (headerLine == null) {
+            return report;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = parseCsvLine(headerLine);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[]{"username", "password", "email"}) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("CSV header is missing the '" + required + "' column");
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService hashPool = Executors.newFixedThreadPool(hashThreads, r -> {
+            Thread t = new Thread(r, "bcrypt-import-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            Set<String> seenUsernames = new HashSet<>();
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            String line;
+            int lineNumber = 1;
+
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.rowRead();
+
+                ImportRow row = parseRow(lineNumber, line, columns, report);
+                if (row == null) {
+                    continue;
+                }
+                if (!seenUsernames.add(row.user.getUsername())) {
+                    report.rowFailed(lineNumber, row.user.getUsername(), "duplicate username in file");
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    loadBatch(batch, hashPool, report);
+                    batch.clear();
+                }
+            }
+            loadBatch(batch, hashPool, report);
+        } finally {
+            hashPool.shutdownNow();
+        }
+
+        LOGGER.info("User import finished: " + report);
+        return report;
+    }
+
+    private void loadBatch(List<ImportRow> batch, ExecutorService hashPool, UserImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<String> passwords = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            passwords.add(row.plainPassword);
+        }
+        List<String> hashes = passwordHasher.hashAll(passwords, hashPool);
+        List<User> users = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            User user = batch.get(i).user;
+            user.setPasswordHash(hashes.get(i));
+            users.add(user);
+        }
+
+        List<User> created = userDAO.createUsersIgnoringDuplicates(users);
+        if (created == null) {
+            for (ImportRow row : batch) {
+                report.rowFailed(row.lineNumber, row.user.getUsername(), "database error, batch not imported");
+            }
+            return;
+        }
+
+        report.rowsImported(created.size());
+        Set<String> createdUsernames = new HashSet<>();
+        for (User user : created) {
+            createdUsernames.add(user.getUsername());
+        }
+        for (ImportRow row : batch) {
+            if (!createdUsernames.contains(row.user.getUsername())) {
+                report.rowFailed(row.lineNumber, row.user.getUsername(), "username already exists");
+            }
+        }
+        LOGGER.info("Imported " + created.size() + " of " + batch.size() + " users in batch");
+    }
+
+    /**
+     * Validates one CSV record and turns it into a {@link User} (without a password hash yet).
+     * Returns {@code null} after recording a failure if the row is invalid.
+     */
+    private ImportRow parseRow(int lineNumber, String line, Map<String, Integer> columns, UserImportReport report) {
+        List<String> fields = parseCsvLine(line);
+        String username = field(fields, columns, "username");
+        String password = field(fields, columns, "password");
+        String email = field(fields, columns, "email");
+        String phone = field(fields, columns, "phone");
+        String address = field(fields, columns, "address");
+        String roleName = field(fields, columns, "role");
+
+        String error = null;
+        if (username == null) {
+            error = "username is required";
+        } else if (username.length() > 50) {
+            error = "username is longer than 50 characters";
+        } else if (password == null) {
+            error = "password is required";
+        } else if (email == null) {
+            error = "email is required";
+        } else if (email.length() > 100) {
+            error = "email is longer than 100 characters";
+        } else if (phone != null && phone.length() > 20) {
+            error = "phone is longer than 20 characters";
+        } else if (address != null && address.length() > 255) {
+            error = "address is longer than 255 characters";
+        }
+
+        UserRole role = UserRole.MEMBER;
+        if (error == null && roleName != null) {
+            try {
+                role = UserRole.valueOf(roleName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                error = "unknown role: " + roleName;
+            }
+        }
+
+        if (error != null) {
+            report.rowFailed(lineNumber, username, error);
+            return null;
+        }
+
+        User user;
+        switch (role) {
+            case ADMIN:
+                user = new Admin(0, username, null, email, phone, address);
+                break;
+            case TRAINER:
+                user = new Trainer(0, username, null, email, phone, address);
+                break;
+            case MEMBER:
+            default:
+                user = new Member(0, username, null, email, phone, address);
+                break;
+        }
+        return new ImportRow(lineNumber, user, password);
+    }
+
+    /**
+     * Returns the trimmed value of a named column, or {@code null} if it is absent or blank.
+     */
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits one CSV line into fields. Supports double-quoted fields with {@code ""} escapes.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    inQuotes = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * A validated input row waiting to be hashed and inserted.
+     */
+    private static final class ImportRow {
+        private final int lineNumber;
+        private final User user;
+        private final String plainPassword;
+
+        private ImportRow(int lineNumber, User user, String plainPassword) {
+            this.lineNumber = lineNumber;
+            this.user = user;
+            this.plainPassword = plainPassword;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.ClassBookingDAO;
+import com.gymmanagement.dao.MembershipDAO;
+import com.gymmanagement.dao.UserDAO;
+import com.gymmanagement.dao.WorkoutClassDAO;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntBinaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job that permanently removes soft-deleted users.
+ * <p>
+ * Deleting a user through {@link UserService#deleteUser(int)} only marks the row, so the admin
+ * gets an answer right away. This job then deletes the user's class bookings, memberships and
+ * workout classes a batch at a time, each batch in its own short statement with a small pause
+ * in between, and finally the user row itself. Locks are therefore only ever held for one
+ * small batch, and other work on the same tables keeps flowing while a long-tenured member or
+ * a busy trainer is being removed.
+ * <p>
+ * The job runs on a single background thread, shortly after each delete and periodically
+ * (which also picks up deletions left over from a previous run of the application).
+ */
+public class UserPurgeJob {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static final int USERS_PER_RUN = 20;
+    private static final int PROGRESS_LOG_INTERVAL = 20;
+
+    private static volatile UserPurgeJob defaultInstance;
+
+    private final UserDAO userDAO;
+    private final MembershipDAO membershipDAO;
+    private final WorkoutClassDAO workoutClassDAO;
+    private final ClassBookingDAO bookingDAO;
+    private final ActiveMembershipIndex activeMembershipIndex;
+    private final ClassCapacityTracker capacityTracker;
+    private final ClassCalendarCache calendarCache;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder purgedUsers = new LongAdder();
+    private final LongAdder deletedBookings = new LongAdder();
+    private final LongAdder deletedMemberships = new LongAdder();
+    private final LongAdder deletedClasses = new LongAdder();
+    private final LongAdder failedUsers = new LongAdder();
+
+    /**
+     * Creates the job and starts its periodic schedule.
+     *
+     * @param userDAO          DAO for users
+     * @param membershipDAO    DAO for memberships
+     * @param workoutClassDAO  DAO for workout classes
+     * @param batchSize        rows deleted per statement
+     * @param batchPauseMillis pause between batches, to give other transactions room
+     * @param intervalSeconds  how often to look for pending deletions
+     */
+    public UserPurgeJob(UserDAO userDAO, MembershipDAO membershipDAO, WorkoutClassDAO workoutClassDAO,
+                        int batchSize, long batchPauseMillis, long intervalSeconds) {
+        this(userDAO, membershipDAO, workoutClassDAO, new ClassBookingDAO(), ActiveMembershipIndex.getDefault(),
+                ClassCapacityTracker.getDefault(), ClassCalendarCache.getDefault(),
+                batchSize, batchPauseMillis, intervalSeconds);
+    }
+
+    /**
+     * Creates the job and starts its periodic schedule.
+     *
+     * @param userDAO               DAO for users
+     * @param membershipDAO         DAO for memberships
+     * @param workoutClassDAO       DAO for workout classes
+     * @param bookingDAO            DAO for class bookings
+     * @param activeMembershipIndex index to invalidate when memberships are removed
+     * @param capacityTracker       class spot counts to invalidate when bookings are removed
+     * @param calendarCache         class calendar to invalidate when bookings or classes are removed
+     * @param batchSize             rows deleted per statement
+     * @param batchPauseMillis      pause between batches, to give other transactions room
+     * @param intervalSeconds       how often to look for pending deletions
+     */
+    public UserPurgeJob(UserDAO userDAO, MembershipDAO membershipDAO, WorkoutClassDAO workoutClassDAO,
+                        ClassBookingDAO bookingDAO, ActiveMembershipIndex activeMembershipIndex,
+                        ClassCapacityTracker capacityTracker, ClassCalendarCache calendarCache,
+                        int batchSize, long batchPauseMillis, long intervalSeconds) {
+        this.userDAO = userDAO;
+        this.membershipDAO = membershipDAO;
+        this.workoutClassDAO = workoutClassDAO;
+        this.bookingDAO = bookingDAO;
+        this.activeMembershipIndex = activeMembershipIndex;
+        this.capacityTracker = capacityTracker;
+        this.calendarCache = calendarCache;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "user-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::runOnce, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the application-wide purge job, configured from {@code gym.purge.batchSize}
+     * (default 500), {@code gym.purge.batchPauseMs} (default 50) and
+     * {@code gym.purge.intervalSeconds} (default 60).
+     *
+     * @return the shared {@link UserPurgeJob}
+     */
+    public static UserPurgeJob getDefault() {
+        if (defaultInstance == null) {
+            synchronized (UserPurgeJob.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new UserPurgeJob(new UserDAO(), new MembershipDAO(), new WorkoutClassDAO(),
+                            Math.max(1, AppConfig.getInt("gym.purge.batchSize", 500)),
+                            AppConfig.getLong("gym.purge.batchPauseMs", 50L),
+                            Math.max(1, AppConfig.getLong("gym.purge.intervalSeconds", 60L)));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Asks the job to run as soon as possible, e.g. right after a user was deleted.
+     */
+    public void requestPurge() {
+        try {
+            scheduler.execute(this::runOnce);
+        } catch (RejectedExecutionException e) {
+            LOGGER.fine("User purge job is stopped; purge request ignored");
+        }
+    }
+
+    /**
+     * Stops the background thread. Pending deletions are picked up on the next start.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns a one-line summary of the job's progress for the metrics screen.
+     *
+     * @return purge statistics
+     */
+    public String getStatsSummary() {
+        return "UserPurge{purgedUsers=" + purgedUsers.sum() +
+                ", deletedBookings=" + deletedBookings.sum() +
+                ", deletedMemberships=" + deletedMemberships.sum() +
+                ", deletedClasses=" + deletedClasses.sum() +
+                ", failed=" + failedUsers.sum() + '}';
+    }
+
+    private void runOnce() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Integer> userIds = userDAO.findUserIdsPendingPurge(USERS_PER_RUN);
+                if (userIds.isEmpty()) {
+                    return;
+                }
+                for (int userId : userIds) {
+                    if (!purgeUser(userId)) {
+                        // Leave the rest for the next scheduled run instead of retrying in a tight loop
+                        failedUsers.increment();
+                        return;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an unexpected error cancel the periodic schedule
+            LOGGER.log(Level.SEVERE, "User purge run failed", e);
+        }
+    }
+
+    private boolean purgeUser(int userId) {
+        long start = System.nanoTime();
+        // Bookings first: cancelling them frees their spots, which a cascade delete would not
+        long bookings = deleteInBatches(userId, "class bookings", bookingDAO::deleteBookingsForMemberBatch);
+        if (bookings != 0) {
+            capacityTracker.invalidateAll();
+            calendarCache.invalidate();
+        }
+        if (bookings < 0) {
+            return false;
+        }
+        deletedBookings.add(bookings);
+
+        long memberships = deleteInBatches(userId, "memberships", membershipDAO::deleteMembershipsForMemberBatch);
+        if (memberships != 0) {
+            // Also after a partial failure: some batches may already be gone
+            activeMembershipIndex.invalidate();
+        }
+        if (memberships < 0) {
+            return false;
+        }
+        deletedMemberships.add(memberships);
+
+        long classes = deleteInBatches(userId, "workout classes", workoutClassDAO::deleteClassesForTrainerBatch);
+        if (classes != 0) {
+            calendarCache.invalidate();
+        }
+        if (classes < 0) {
+            return false;
+        }
+        deletedClasses.add(classes);
+
+        if (!userDAO.purgeDeletedUser(userId)) {
+            return false;
+        }
+        purgedUsers.increment();
+        LOGGER.info("Purged user id " + userId + " (" + bookings + " bookings, " + memberships + " memberships, " + classes +
+                " workout classes) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return true;
+    }
+
+    /**
+     * Repeats a batch delete until a batch comes back short.
+     *
+     * @return total rows deleted, or {@code -1} if a batch failed or the job was interrupted
+     */
+    private long deleteInBatches(int userId, String what, IntBinaryOperator deleteBatch) {
+        long total = 0;
+        int batches = 0;
+        while (true) {
+            int deleted = deleteBatch.applyAsInt(userId, batchSize);
+            if (deleted < 0) {
+                return -1;
+            }
+            total += deleted;
+            if (deleted < batchSize) {
+                return total;
+            }
+
+            if (++batches % PROGRESS_LOG_INTERVAL == 0) {
+                LOGGER.info("Purging user id " + userId + ": " + total + " " + what + " deleted so far");
+            }
+            if (batchPauseMillis > 0) {
+                try {
+                    Thread.sleep(batchPauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+        }
+    }
+}
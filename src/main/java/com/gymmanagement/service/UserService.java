@@ -1,13 +1,16 @@
 package com.gymmanagement.service;
 
+import com.gymmanagement.dao.InsertResult;
+import com.gymmanagement.dao.Page;
 import com.gymmanagement.dao.UserDAO;
 import com.gymmanagement.model.Admin;
 import com.gymmanagement.model.Member;
+import com.gymmanagement.model.Session;
 import com.gymmanagement.model.Trainer;
 import com.gymmanagement.model.User;
 import com.gymmanagement.model.UserRole;
+import com.gymmanagement.util.CacheStats;
 import com.gymmanagement.util.LoggerUtil;
-import org.mindrot.jbcrypt.BCrypt;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -21,23 +24,55 @@ import java.util.logging.Logger;
  */
 public class UserService {
 
+    /**
+     * Client identifier used for logins made from the local console.
+     */
+    public static final String CONSOLE_CLIENT = "console";
+
     private final UserDAO userDAO;
+    private final PasswordHasher passwordHasher;
+    private final SessionManager sessionManager;
+    private final LoginThrottle loginThrottle;
+    private final UserPurgeJob purgeJob;
     private static final Logger LOGGER = LoggerUtil.getLogger();
 
     public UserService() {
-        this.userDAO = new UserDAO();
+        this(new UserDAO(), PasswordHasher.getDefault(), SessionManager.getDefault(), LoginThrottle.getDefault());
     }
 
     public UserService(UserDAO userDAO) {
+        this(userDAO, PasswordHasher.getDefault(), SessionManager.getDefault(), LoginThrottle.getDefault());
+    }
+
+    public UserService(UserDAO userDAO, PasswordHasher passwordHasher) {
+        this(userDAO, passwordHasher, SessionManager.getDefault(), LoginThrottle.getDefault());
+    }
+
+    public UserService(UserDAO userDAO, PasswordHasher passwordHasher, SessionManager sessionManager) {
+        this(userDAO, passwordHasher, sessionManager, LoginThrottle.getDefault());
+    }
+
+    public UserService(UserDAO userDAO, PasswordHasher passwordHasher, SessionManager sessionManager,
+                       LoginThrottle loginThrottle) {
+        this(userDAO, passwordHasher, sessionManager, loginThrottle, UserPurgeJob.getDefault());
+    }
+
+    public UserService(UserDAO userDAO, PasswordHasher passwordHasher, SessionManager sessionManager,
+                       LoginThrottle loginThrottle, UserPurgeJob purgeJob) {
         this.userDAO = userDAO;
+        this.passwordHasher = passwordHasher;
+        this.sessionManager = sessionManager;
+        this.loginThrottle = loginThrottle;
+        this.purgeJob = purgeJob;
     }
 
     /**
      * Registers a new user with the given data.
      * <p>
-     * This method checks whether the username is already taken, hashes
-     * the plain-text password using BCrypt, and then persists the user
-     * via the DAO.
+     * This method hashes the plain-text password using BCrypt (on the shared
+     * {@link PasswordHasher} pool) and then persists the
+     * user with a single conflict-aware insert, which both checks that the username is
+     * free and creates the user in one database round trip.
      *
      * @param username      desired username
      * @param plainPassword password in plain text
@@ -46,6 +81,7 @@ public class UserService {
      * @param address       physical address
      * @param role          chosen {@link UserRole}
      * @return the created {@link User} or {@code null} if registration failed
+     * @throws ServiceBusyException if the password hashing pool is overloaded
      */
     public User registerUser(String username,
                              String plainPassword,
@@ -54,15 +90,8 @@ public class UserService {
                              String address,
                              UserRole role) {
 
-        // Check if username is already taken
-        User existing = userDAO.findByUsername(username);
-        if (existing != null) {
-            LOGGER.warning("Registration failed: username already exists (" + username + ")");
-            return null;
-        }
-
         // Hash password
-        String hashed = BCrypt.hashpw(plainPassword, BCrypt.gensalt(12));
+        String hashed = passwordHasher.hash(plainPassword);
 
         User user;
         switch (role) {
@@ -78,36 +107,124 @@ public class UserService {
                 break;
         }
 
-        User created = userDAO.createUser(user);
-        if (created != null) {
-            LOGGER.info("User registered successfully: " + username + " (" + role + ")");
-        } else {
-            LOGGER.warning("User registration failed at DAO layer for username: " + username);
+        InsertResult result = userDAO.createUserIfUsernameAvailable(user);
+        switch (result) {
+            case CREATED:
+                LOGGER.info("User registered successfully: " + username + " (" + role + ")");
+                return user;
+            case DUPLICATE:
+                LOGGER.warning("Registration failed: username already exists (" + username + ")");
+                return null;
+            case FAILED:
+            default:
+                LOGGER.warning("User registration failed at DAO layer for username: " + username);
+                return null;
         }
-        return created;
     }
 
     /**
      * Attempts to log a user in by verifying the given password
      * against the stored BCrypt hash.
+     * <p>
+     * If the stored hash was created with a different cost factor than the one currently
+     * configured, it is transparently re-hashed in the background after a successful login.
      *
      * @param username      the username
      * @param plainPassword the plain-text password to check
      * @return the logged-in {@link User}, or {@code null} if credentials are invalid
+     * @throws ServiceBusyException if the password hashing pool is overloaded
+     *                              or too many login attempts were made recently
      */
     public User login(String username, String plainPassword) {
+        return login(username, plainPassword, CONSOLE_CLIENT);
+    }
+
+    /**
+     * Attempts to log a user in on behalf of a specific client.
+     * <p>
+     * Attempts are rate-limited per username and per client before the password is checked,
+     * so repeated guessing is refused without spending time on BCrypt.
+     *
+     * @param username      the username
+     * @param plainPassword the plain-text password to check
+     * @param clientId      identifies where the attempt comes from
+     * @return the logged-in {@link User}, or {@code null} if credentials are invalid
+     * @throws LoginThrottledException if too many attempts were made recently
+     * @throws ServiceBusyException    if the password hashing pool is overloaded
+     */
+    public User login(String username, String plainPassword, String clientId) {
+        loginThrottle.checkAttempt(username, clientId);
+
         User user = userDAO.findByUsername(username);
 
         // If user not found OR password is wrong, log generic failure
-        if (user == null || !BCrypt.checkpw(plainPassword, user.getPasswordHash())) {
+        if (user == null || !passwordHasher.verify(plainPassword, user.getPasswordHash())) {
             LOGGER.warning("Login failed: invalid credentials for username: " + username);
             return null;
         }
 
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            passwordHasher.rehashInBackground(plainPassword, newHash -> {
+                if (userDAO.updatePasswordHash(user, newHash)) {
+                    LOGGER.info("Password hash upgraded to cost " + passwordHasher.getCost() +
+                            " for username: " + username);
+                }
+            });
+        }
+
         LOGGER.info("User logged in successfully: " + username + " (" + user.getRole() + ")");
         return user;
     }
 
+    /**
+     * Logs a user in and opens a session for them. The returned token can be used with
+     * {@link #authenticate(String)} for later requests, which avoids re-checking the password.
+     *
+     * @param username      the username
+     * @param plainPassword the plain-text password to check
+     * @return the new {@link Session}, or {@code null} if credentials are invalid
+     * @throws ServiceBusyException if the password hashing pool is overloaded
+     *                              or too many login attempts were made recently
+     */
+    public Session startSession(String username, String plainPassword) {
+        return startSession(username, plainPassword, CONSOLE_CLIENT);
+    }
+
+    /**
+     * Logs a user in on behalf of a specific client and opens a session for them.
+     *
+     * @param username      the username
+     * @param plainPassword the plain-text password to check
+     * @param clientId      identifies where the attempt comes from
+     * @return the new {@link Session}, or {@code null} if credentials are invalid
+     * @throws ServiceBusyException if the password hashing pool is overloaded
+     *                              or too many login attempts were made recently
+     */
+    public Session startSession(String username, String plainPassword, String clientId) {
+        User user = login(username, plainPassword, clientId);
+        return user == null ? null : sessionManager.createSession(user);
+    }
+
+    /**
+     * Identifies the user behind a session token with a constant-time lookup.
+     *
+     * @param token the session token returned by {@link #startSession(String, String)}
+     * @return the session's {@link User}, or {@code null} if the session is unknown or expired
+     */
+    public User authenticate(String token) {
+        return sessionManager.authenticate(token);
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param token the session token
+     * @return {@code true} if a session was ended
+     */
+    public boolean logout(String token) {
+        return sessionManager.invalidate(token);
+    }
+
     /**
      * Returns all users in the system.
      *
@@ -127,13 +244,89 @@ public class UserService {
         return userDAO.findByRole(role);
     }
 
+    /**
+     * Returns one page of users, ordered by ID.
+     *
+     * @param afterUserId {@link Page#getNextKey()} of the previous page, or {@code 0} for the first page
+     * @param pageSize    maximum number of users per page
+     * @return a {@link Page} of users
+     */
+    public Page<User> getUsersPage(int afterUserId, int pageSize) {
+        return userDAO.findPage(afterUserId, pageSize);
+    }
+
+    /**
+     * Returns one page of users that have a specific role, ordered by ID.
+     *
+     * @param role        the {@link UserRole} to filter by
+     * @param afterUserId {@link Page#getNextKey()} of the previous page, or {@code 0} for the first page
+     * @param pageSize    maximum number of users per page
+     * @return a {@link Page} of users with that role
+     */
+    public Page<User> getUsersByRolePage(UserRole role, int afterUserId, int pageSize) {
+        return userDAO.findByRolePage(role, afterUserId, pageSize);
+    }
+
     /**
      * Deletes a user by their ID.
+     * <p>
+     * The user is hidden from listings and can no longer log in as soon as this returns; the
+     * user's memberships and classes are removed shortly afterwards by the {@link UserPurgeJob}.
      *
      * @param userId ID of the user to delete
      * @return {@code true} if the user was deleted; {@code false} otherwise
      */
     public boolean deleteUser(int userId) {
-        return userDAO.deleteUserById(userId);
+        boolean deleted = userDAO.deleteUserById(userId);
+        if (deleted) {
+            sessionManager.invalidateUser(userId);
+            purgeJob.requestPurge();
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns timing statistics for password hashing and verification.
+     *
+     * @return current {@link HashingStats}
+     */
+    public HashingStats getHashingStats() {
+        return passwordHasher.getStats();
+    }
+
+    /**
+     * Returns a summary of open, created and expired sessions.
+     *
+     * @return session statistics
+     */
+    public String getSessionStats() {
+        return sessionManager.getStatsSummary();
+    }
+
+    /**
+     * Returns allowed and throttled login attempt counts.
+     *
+     * @return login throttle statistics
+     */
+    public String getLoginThrottleStats() {
+        return loginThrottle.getStatsSummary();
+    }
+
+    /**
+     * Returns progress counters of the background purge of deleted users.
+     *
+     * @return purge statistics
+     */
+    public String getPurgeStats() {
+        return purgeJob.getStatsSummary();
+    }
+
+    /**
+     * Returns statistics for the cache used to look users up at login.
+     *
+     * @return current {@link CacheStats}
+     */
+    public CacheStats getUserCacheStats() {
+        return UserDAO.getUsernameCacheStats();
     }
 }
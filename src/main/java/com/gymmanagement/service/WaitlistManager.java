@@ -0,0 +1,305 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.ClassWaitlistDAO;
+import com.gymmanagement.dao.InsertResult;
+import com.gymmanagement.util.AppConfig;
+import com.gymmanagement.util.LoggerUtil;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * First-come, first-served waitlists for full workout classes.
+ * <p>
+ * The waitlists are stored in the {@code class_waitlist} table, and promotion always takes the
+ * oldest entry there (see {@link ClassWaitlistDAO#promoteNext(int)}). On top of that, each
+ * class's waitlist is mirrored in a {@link ConcurrentLinkedQueue}, loaded on first use, so
+ * positions and "is anyone waiting?" checks on the booking path are answered from memory.
+ * <p>
+ * When a spot frees up, {@link #requestPromotion(int)} only hands the class to a single
+ * background thread and returns, so cancelling a booking takes the same time however long the
+ * waitlist is. Requests for a class that is already queued for promotion are merged. Every
+ * {@code gym.waitlist.sweepSeconds} (default 60) the thread also re-reads the waitlists from
+ * the database and tries to promote, which picks up spots freed elsewhere (another application
+ * instance, the user purge job).
+ */
+public class WaitlistManager {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static volatile WaitlistManager defaultInstance;
+
+    private final ClassWaitlistDAO waitlistDAO;
+    private final ClassCapacityTracker capacityTracker;
+    private final ClassCalendarCache calendarCache;
+    private final ConcurrentHashMap<Integer, Queue<Integer>> queuesByClass = new ConcurrentHashMap<>();
+    private final Set<Integer> promotionRequested = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService promoter;
+
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder promoted = new LongAdder();
+
+    /**
+     * Creates the manager and starts its background thread.
+     *
+     * @param waitlistDAO     DAO for waitlist entries
+     * @param capacityTracker class spot counts to refresh after promotions
+     * @param calendarCache   class calendar whose booked counts follow promotions
+     * @param sweepSeconds    how often to re-read the waitlists and try to promote
+     */
+    public WaitlistManager(ClassWaitlistDAO waitlistDAO, ClassCapacityTracker capacityTracker,
+                           ClassCalendarCache calendarCache, long sweepSeconds) {
+        this.waitlistDAO = waitlistDAO;
+        this.capacityTracker = capacityTracker;
+        this.calendarCache = calendarCache;
+        this.promoter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "waitlist-promoter");
+            t.setDaemon(true);
+            return t;
+        });
+        this.promoter.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the application-wide waitlist manager.
+     *
+     * @return the shared {@link WaitlistManager}
+     */
+    public static WaitlistManager getDefault() {
+        if (defaultInstance == null) {
+            synchronized (WaitlistManager.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new WaitlistManager(new ClassWaitlistDAO(), ClassCapacityTracker.getDefault(),
+                            ClassCalendarCache.getDefault(),
+                            Math.max(1, AppConfig.getLong("gym.waitlist.sweepSeconds", 60L)));
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Puts a member at the end of a class's waitlist. If a spot happens to be free already,
+     * the member is promoted straight away in the background.
+     *
+     * @param workoutClassId the class
+     * @param memberId       the member's user ID
+     * @return {@link InsertResult#CREATED}, {@link InsertResult#DUPLICATE} if the member is
+     * already waiting for or booked into the class, or {@link InsertResult#FAILED}
+     */
+    public InsertResult join(int workoutClassId, int memberId) {
+        Queue<Integer> queue = queueFor(workoutClassId);
+        InsertResult result;
+        // Keeps the in-memory order the same as the database order for concurrent joins
+        synchronized (queue) {
+            result = waitlistDAO.joinWaitlist(workoutClassId, memberId);
+            if (result == InsertResult.CREATED && !queue.contains(memberId)) {
+                queue.add(memberId);
+            }
+        }
+        if (result == InsertResult.CREATED) {
+            joined.increment();
+            requestPromotion(workoutClassId);
+        }
+        return result;
+    }
+
+    /**
+     * Takes a member off a class's waitlist.
+     *
+     * @param workoutClassId the class
+     * @param memberId       the member's user ID
+     * @return {@code true} if the member was waiting; {@code false} otherwise
+     */
+    public boolean leave(int workoutClassId, int memberId) {
+        boolean removed = waitlistDAO.leaveWaitlist(workoutClassId, memberId);
+        if (removed) {
+            queueFor(workoutClassId).remove(memberId);
+        }
+        return removed;
+    }
+
+    /**
+     * Returns a member's place on a class's waitlist.
+     *
+     * @param workoutClassId the class
+     * @param memberId       the member's user ID
+     * @return 1 for the first in line, or 0 if the member is not waiting
+     */
+    public int getPosition(int workoutClassId, int memberId) {
+        int position = 0;
+        for (int waiting : queueFor(workoutClassId)) {
+            position++;
+            if (waiting == memberId) {
+                return position;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns how many members are waiting for a class.
+     *
+     * @param workoutClassId the class
+     * @return waitlist length
+     */
+    public int getWaitingCount(int workoutClassId) {
+        return queueFor(workoutClassId).size();
+    }
+
+    /**
+     * Tells whether anyone is waiting for a class. Free spots of such a class go to the
+     * waitlist, not to new bookings.
+     *
+     * @param workoutClassId the class
+     * @return {@code true} if the waitlist is not empty
+     */
+    public boolean hasWaiting(int workoutClassId) {
+        return !queueFor(workoutClassId).isEmpty();
+    }
+
+    /**
+     * Asks the background thread to fill a class's free spots from its waitlist. Returns
+     * immediately.
+     *
+     * @param workoutClassId the class
+     */
+    public void requestPromotion(int workoutClassId) {
+        if (!promotionRequested.add(workoutClassId)) {
+            return;
+        }
+        try {
+            promoter.execute(() -> {
+                // Cleared first, so a spot freed while we promote schedules another round
+                promotionRequested.remove(workoutClassId);
+                promote(workoutClassId);
+            });
+        } catch (RejectedExecutionException e) {
+            promotionRequested.remove(workoutClassId);
+            LOGGER.fine("Waitlist promoter is stopped; promotion request ignored");
+        }
+    }
+
+    /**
+     * Forgets a class's in-memory waitlist, e.g. after the class was deleted.
+     *
+     * @param workoutClassId the class
+     */
+    public void invalidate(int workoutClassId) {
+        queuesByClass.remove(workoutClassId);
+    }
+
+    /**
+     * Forgets every in-memory waitlist; they are read again from the database on next use.
+     */
+    public void invalidateAll() {
+        queuesByClass.clear();
+    }
+
+    /**
+     * Stops the background thread. Waiting members are promoted by the next sweep after a
+     * restart.
+     */
+    public void stop() {
+        promoter.shutdownNow();
+    }
+
+    /**
+     * Returns a one-line summary for the metrics screen.
+     *
+     * @return waitlist statistics
+     */
+    public String getStatsSummary() {
+        int waiting = 0;
+        for (Queue<Integer> queue : queuesByClass.values()) {
+            waiting += queue.size();
+        }
+        return "Waitlist{trackedClasses=" + queuesByClass.size() +
+                ", waiting=" + waiting +
+                ", joined=" + joined.sum() +
+                ", promoted=" + promoted.sum() +
+                ", pendingPromotions=" + promotionRequested.size() + '}';
+    }
+
+    /**
+     * Returns a class's in-memory waitlist, loading it from the database the first time. If
+     * loading fails an empty, uncached queue is returned; the database still keeps new
+     * bookings away from spots that belong to the waitlist.
+     */
+    private Queue<Integer> queueFor(int workoutClassId) {
+        Queue<Integer> queue = queuesByClass.get(workoutClassId);
+        if (queue != null) {
+            return queue;
+        }
+        List<Integer> memberIds = waitlistDAO.findWaitingMemberIds(workoutClassId);
+        if (memberIds == null) {
+            return new ConcurrentLinkedQueue<>();
+        }
+        Queue<Integer> loaded = new ConcurrentLinkedQueue<>(memberIds);
+        queue = queuesByClass.putIfAbsent(workoutClassId, loaded);
+        return queue != null ? queue : loaded;
+    }
+
+    private void promote(int workoutClassId) {
+        try {
+            Queue<Integer> queue = queueFor(workoutClassId);
+            Integer memberId;
+            while ((memberId = waitlistDAO.promoteNext(workoutClassId)) != null) {
+                queue.remove(memberId);
+                calendarCache.adjustBookedCount(workoutClassId, 1);
+                promoted.increment();
+                LOGGER.info("Promoted from waitlist: classId=" + workoutClassId + ", memberId=" + memberId);
+            }
+            refresh(workoutClassId, queue);
+            // Promotions used up spots, or an empty waitlist left one free for anyone
+            capacityTracker.invalidate(workoutClassId);
+        } catch (RuntimeException e) {
+            // Never let an unexpected error kill the promoter thread
+            LOGGER.log(Level.SEVERE, "Waitlist promotion failed for class id " + workoutClassId, e);
+        }
+    }
+
+    /**
+     * Brings a class's in-memory waitlist back in line with the database (members who were
+     * deleted, or who joined or left through another application instance).
+     */
+    private void refresh(int workoutClassId, Queue<Integer> queue) {
+        synchronized (queue) {
+            List<Integer> memberIds = waitlistDAO.findWaitingMemberIds(workoutClassId);
+            if (memberIds != null && !memberIds.equals(List.copyOf(queue))) {
+                queue.clear();
+                queue.addAll(memberIds);
+            }
+        }
+    }
+
+    private void sweep() {
+        try {
+            Set<Integer> withWaitlist = new HashSet<>(waitlistDAO.findClassIdsWithWaitlist());
+            for (int workoutClassId : withWaitlist) {
+                promote(workoutClassId);
+            }
+            // Waitlists emptied elsewhere must not keep holding back bookings here
+            for (Map.Entry<Integer, Queue<Integer>> entry : queuesByClass.entrySet()) {
+                if (!entry.getValue().isEmpty() && !withWaitlist.contains(entry.getKey())) {
+                    refresh(entry.getKey(), entry.getValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an unexpected error cancel the periodic schedule
+            LOGGER.log(Level.SEVERE, "Waitlist sweep failed", e);
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.gymmanagement.service;
 
+import com.gymmanagement.dao.BookingResult;
+import com.gymmanagement.dao.ClassBookingDAO;
+import com.gymmanagement.dao.ClassUpdateResult;
+import com.gymmanagement.dao.InsertResult;
 import com.gymmanagement.dao.WorkoutClassDAO;
 import com.gymmanagement.model.WorkoutClass;
+import com.gymmanagement.util.DataAccessException;
 import com.gymmanagement.util.LoggerUtil;
+import com.gymmanagement.util.UnitOfWork;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -16,18 +26,35 @@ import java.util.logging.Logger;
 public class WorkoutClassService {
 
     private final WorkoutClassDAO workoutClassDAO;
+    private final ClassBookingDAO bookingDAO;
+    private final ClassCapacityTracker capacityTracker;
+    private final WaitlistManager waitlistManager;
+    private final ClassCalendarCache calendarCache;
+    private final TrainerScheduleIndex scheduleIndex;
     private static final Logger LOGGER = LoggerUtil.getLogger();
 
     public WorkoutClassService() {
-        this.workoutClassDAO = new WorkoutClassDAO();
+        this(new WorkoutClassDAO());
     }
 
     public WorkoutClassService(WorkoutClassDAO workoutClassDAO) {
+        this(workoutClassDAO, new ClassBookingDAO(), ClassCapacityTracker.getDefault(), WaitlistManager.getDefault(),
+                ClassCalendarCache.getDefault(), TrainerScheduleIndex.getDefault());
+    }
+
+    public WorkoutClassService(WorkoutClassDAO workoutClassDAO, ClassBookingDAO bookingDAO,
+                               ClassCapacityTracker capacityTracker, WaitlistManager waitlistManager,
+                               ClassCalendarCache calendarCache, TrainerScheduleIndex scheduleIndex) {
         this.workoutClassDAO = workoutClassDAO;
+        this.bookingDAO = bookingDAO;
+        this.capacityTracker = capacityTracker;
+        this.waitlistManager = waitlistManager;
+        this.calendarCache = calendarCache;
+        this.scheduleIndex = scheduleIndex;
     }
 
     /**
-     * Creates a new workout class for a trainer.
+     * Creates a new workout class of the default length for a trainer.
      *
      * @param trainerId    ID of the trainer
      * @param type         class type (e.g. Yoga, HIIT)
@@ -35,12 +62,40 @@ public class WorkoutClassService {
      * @param scheduleTime date and time the class starts
      * @param capacity     maximum number of participants
      * @return created {@link WorkoutClass} or {@code null} if creation failed
+     * @throws ScheduleConflictException if the trainer already has a class at that time
+     */
+    public WorkoutClass createClass(int trainerId,
+                                    String type,
+                                    String description,
+                                    LocalDateTime scheduleTime,
+                                    int capacity) {
+        return createClass(trainerId, type, description, scheduleTime, WorkoutClass.DEFAULT_DURATION_MINUTES, capacity);
+    }
+
+    /**
+     * Creates a new workout class for a trainer, unless it overlaps one of the trainer's other
+     * classes.
+     *
+     * @param trainerId       ID of the trainer
+     * @param type            class type (e.g. Yoga, HIIT)
+     * @param description     description of the class
+     * @param scheduleTime    date and time the class starts
+     * @param durationMinutes length of the class in minutes
+     * @param capacity        maximum number of participants
+     * @return created {@link WorkoutClass} or {@code null} if creation failed
+     * @throws ScheduleConflictException if the trainer already has a class at that time
      */
     public WorkoutClass createClass(int trainerId,
                                     String type,
                                     String description,
                                     LocalDateTime scheduleTime,
+                                    int durationMinutes,
                                     int capacity) {
+        if (durationMinutes <= 0) {
+            LOGGER.warning("Workout class creation rejected, invalid duration " + durationMinutes +
+                    " for trainerId=" + trainerId);
+            return null;
+        }
 
         WorkoutClass workoutClass = new WorkoutClass(
                 0,
@@ -50,31 +105,65 @@ public class WorkoutClassService {
                 scheduleTime,
                 capacity
         );
+        workoutClass.setDurationMinutes(durationMinutes);
 
-        WorkoutClass created = workoutClassDAO.createWorkoutClass(workoutClass);
-        if (created != null) {
+        boolean created = scheduleIndex.schedule(workoutClass,
+                () -> workoutClassDAO.createWorkoutClass(workoutClass) != null);
+        if (created) {
+            calendarCache.put(workoutClass);
             LOGGER.info("Workout class created by trainerId=" + trainerId +
                     ", type=" + type);
-        } else {
-            LOGGER.warning("Workout class creation failed for trainerId=" + trainerId);
+            return workoutClass;
         }
-        return created;
+        LOGGER.warning("Workout class creation failed for trainerId=" + trainerId);
+        return null;
     }
 
     /**
-     * Updates an existing workout class.
+     * Updates an existing workout class in a single transaction, unless its new time overlaps
+     * another class of the same trainer or its new capacity is below the members already booked.
      *
      * @param workoutClass updated workout class data
-     * @return {@code true} if the class was updated; {@code false} otherwise
+     * @return the {@link ClassUpdateResult}
+     * @throws ScheduleConflictException if the trainer already has another class at the new time
      */
-    public boolean updateClass(WorkoutClass workoutClass) {
-        boolean updated = workoutClassDAO.updateWorkoutClass(workoutClass);
-        if (updated) {
+    public ClassUpdateResult updateClass(WorkoutClass workoutClass) {
+        if (workoutClass.getDurationMinutes() <= 0) {
+            LOGGER.warning("Workout class update rejected, invalid duration: id=" + workoutClass.getWorkoutClassId());
+            return ClassUpdateResult.FAILED;
+        }
+
+        AtomicReference<ClassUpdateResult> result = new AtomicReference<>(ClassUpdateResult.FAILED);
+        try {
+            // A database conflict must reach the index, which turns it into a ScheduleConflictException
+            scheduleIndex.schedule(workoutClass, () -> UnitOfWork.inTransaction(() -> {
+                result.set(workoutClassDAO.updateWorkoutClass(workoutClass));
+                if (result.get() != ClassUpdateResult.UPDATED) {
+                    UnitOfWork.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            }));
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.SEVERE, "Workout class update transaction failed: id=" +
+                    workoutClass.getWorkoutClassId(), e);
+            result.set(ClassUpdateResult.FAILED);
+        }
+
+        if (result.get() == ClassUpdateResult.UPDATED) {
+            // Capacity or time may have changed
+            capacityTracker.invalidate(workoutClass.getWorkoutClassId());
+            calendarCache.put(workoutClass);
+            if (waitlistManager.hasWaiting(workoutClass.getWorkoutClassId())) {
+                // A larger capacity frees spots for the waitlist
+                waitlistManager.requestPromotion(workoutClass.getWorkoutClassId());
+            }
             LOGGER.info("Workout class updated: id=" + workoutClass.getWorkoutClassId());
         } else {
-            LOGGER.warning("Workout class update failed: id=" + workoutClass.getWorkoutClassId());
+            LOGGER.warning("Workout class update failed: id=" + workoutClass.getWorkoutClassId() +
+                    ", result=" + result.get());
         }
-        return updated;
+        return result.get();
     }
 
     /**
@@ -87,6 +176,10 @@ public class WorkoutClassService {
     public boolean deleteClass(int classId, int trainerId) {
         boolean deleted = workoutClassDAO.deleteWorkoutClass(classId, trainerId);
         if (deleted) {
+            capacityTracker.invalidate(classId);
+            waitlistManager.invalidate(classId);
+            calendarCache.remove(classId);
+            scheduleIndex.remove(trainerId, classId);
             LOGGER.info("Workout class deleted: id=" + classId + ", trainerId=" + trainerId);
         } else {
             LOGGER.warning("Workout class delete failed: id=" + classId + ", trainerId=" + trainerId);
@@ -103,6 +196,45 @@ public class WorkoutClassService {
         return workoutClassDAO.getAllClasses();
     }
 
+    /**
+     * Returns the classes starting on the days of a range, from the in-memory class calendar.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (inclusive)
+     * @return list of classes, ordered by schedule time
+     * @throws DataAccessException if the classes could not be read
+     */
+    public List<WorkoutClass> getClassesBetween(LocalDate from, LocalDate to) {
+        return calendarCache.getClasses(from, to);
+    }
+
+    /**
+     * Returns the classes starting on one day, e.g. "this Tuesday".
+     *
+     * @param day the day
+     * @return list of classes, ordered by schedule time
+     * @throws DataAccessException if the classes could not be read
+     */
+    public List<WorkoutClass> getClassesOn(LocalDate day) {
+        return calendarCache.getClasses(day, day);
+    }
+
+    /**
+     * Returns the classes that have not started yet and start within a number of days,
+     * today counting as the first.
+     *
+     * @param days number of days to look ahead, e.g. 7 for the coming week
+     * @return list of classes, ordered by schedule time
+     * @throws DataAccessException if the classes could not be read
+     */
+    public List<WorkoutClass> getUpcomingClasses(int days) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        return calendarCache.getClasses(today, today.plusDays(days - 1L)).stream()
+                .filter(wc -> wc.getScheduleTime().isAfter(now))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Returns all workout classes owned by a specific trainer.
      *
@@ -112,4 +244,166 @@ public class WorkoutClassService {
     public List<WorkoutClass> getClassesForTrainer(int trainerId) {
         return workoutClassDAO.getClassesByTrainerId(trainerId);
     }
+
+    /**
+     * Books a spot in an upcoming class for a member.
+     * <p>
+     * A spot is first taken from the in-memory {@link ClassCapacityTracker}, so when a class is
+     * full, further attempts are refused without touching the database. The booking itself is
+     * then written with a conditional update that can never exceed the class capacity. While
+     * members are on the class's waitlist, the class counts as full.
+     *
+     * @param classId  ID of the class to book
+     * @param memberId ID of the member booking the spot
+     * @return the {@link BookingResult}
+     */
+    public BookingResult bookClass(int classId, int memberId) {
+        if (waitlistManager.hasWaiting(classId)) {
+            LOGGER.fine("Booking refused, class has a waitlist: id=" + classId + ", memberId=" + memberId);
+            return fullOrStarted(classId);
+        }
+        if (!capacityTracker.tryReserve(classId)) {
+            LOGGER.fine("Booking refused, class full: id=" + classId + ", memberId=" + memberId);
+            return fullOrStarted(classId);
+        }
+
+        BookingResult result = bookingDAO.bookSpot(classId, memberId);
+        switch (result) {
+            case BOOKED:
+                calendarCache.adjustBookedCount(classId, 1);
+                LOGGER.info("Class booked: id=" + classId + ", memberId=" + memberId);
+                break;
+            case CLASS_FULL:
+            case CLASS_NOT_AVAILABLE:
+                // The in-memory count was out of date; read it again next time
+                capacityTracker.invalidate(classId);
+                break;
+            case ALREADY_BOOKED:
+            case FAILED:
+            default:
+                capacityTracker.release(classId);
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Result for a class that has no spot to give. A class that has started has no free spots
+     * either, but must not be reported as full: members would be offered a waitlist that can
+     * never move.
+     */
+    private BookingResult fullOrStarted(int classId) {
+        return calendarCache.hasStarted(classId) ? BookingResult.CLASS_NOT_AVAILABLE : BookingResult.CLASS_FULL;
+    }
+
+    /**
+     * Cancels a member's booking of a class. If members are waiting for the class, the freed
+     * spot goes to the first of them; that happens in the background, so cancelling does not
+     * wait for it.
+     *
+     * @param classId  ID of the booked class
+     * @param memberId ID of the member
+     * @return {@code true} if the booking was cancelled; {@code false} if there was none or it failed
+     */
+    public boolean cancelBooking(int classId, int memberId) {
+        boolean cancelled = bookingDAO.cancelBooking(classId, memberId);
+        if (cancelled) {
+            calendarCache.adjustBookedCount(classId, -1);
+            if (waitlistManager.hasWaiting(classId)) {
+                waitlistManager.requestPromotion(classId);
+            } else {
+                capacityTracker.release(classId);
+            }
+            LOGGER.info("Class booking cancelled: id=" + classId + ", memberId=" + memberId);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Puts a member on the waitlist of a full class.
+     *
+     * @param classId  ID of the class
+     * @param memberId ID of the member
+     * @return {@link InsertResult#CREATED} if the member joined, {@link InsertResult#DUPLICATE}
+     * if they are already waiting for or booked into the class, {@link InsertResult#FAILED} on error
+     */
+    public InsertResult joinWaitlist(int classId, int memberId) {
+        InsertResult result = waitlistManager.join(classId, memberId);
+        if (result == InsertResult.CREATED) {
+            LOGGER.info("Joined class waitlist: id=" + classId + ", memberId=" + memberId);
+        }
+        return result;
+    }
+
+    /**
+     * Takes a member off a class's waitlist.
+     *
+     * @param classId  ID of the class
+     * @param memberId ID of the member
+     * @return {@code true} if the member was waiting; {@code false} otherwise
+     */
+    public boolean leaveWaitlist(int classId, int memberId) {
+        boolean left = waitlistManager.leave(classId, memberId);
+        if (left) {
+            LOGGER.info("Left class waitlist: id=" + classId + ", memberId=" + memberId);
+        }
+        return left;
+    }
+
+    /**
+     * Returns a member's place on a class's waitlist.
+     *
+     * @param classId  ID of the class
+     * @param memberId ID of the member
+     * @return 1 for the first in line, or 0 if the member is not waiting
+     */
+    public int getWaitlistPosition(int classId, int memberId) {
+        return waitlistManager.getPosition(classId, memberId);
+    }
+
+    /**
+     * Returns the classes a member has booked.
+     *
+     * @param memberId the member's ID
+     * @return list of booked classes, ordered by schedule time
+     */
+    public List<WorkoutClass> getBookedClasses(int memberId) {
+        return workoutClassDAO.getClassesBookedByMember(memberId);
+    }
+
+    /**
+     * Returns a summary of the in-memory class capacity counts.
+     *
+     * @return capacity tracker statistics
+     */
+    public String getCapacityStats() {
+        return capacityTracker.getStatsSummary();
+    }
+
+    /**
+     * Returns a summary of the class waitlists.
+     *
+     * @return waitlist statistics
+     */
+    public String getWaitlistStats() {
+        return waitlistManager.getStatsSummary();
+    }
+
+    /**
+     * Returns a summary of the in-memory class calendar.
+     *
+     * @return class calendar statistics
+     */
+    public String getCalendarStats() {
+        return calendarCache.getStatsSummary();
+    }
+
+    /**
+     * Returns a summary of the trainer schedule index.
+     *
+     * @return schedule index statistics
+     */
+    public String getScheduleStats() {
+        return scheduleIndex.getStatsSummary();
+    }
 }
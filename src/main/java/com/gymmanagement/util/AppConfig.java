@@ -0,0 +1,80 @@
+package com.gymmanagement.util;
+
+/**
+ * Utility class for reading application settings.
+ * <p>
+ * A setting is looked up first as a JVM system property (e.g. {@code -Dgym.db.url=...}),
+ * then as an environment variable with the dots replaced by underscores and upper-cased
+ * (e.g. {@code GYM_DB_URL}), and finally falls back to the supplied default.
+ */
+public class AppConfig {
+
+    private AppConfig() {
+        // utility class
+    }
+
+    /**
+     * Returns a string setting.
+     *
+     * @param key          the property name, e.g. {@code gym.db.url}
+     * @param defaultValue value to use when the setting is not defined
+     * @return the configured value, or {@code defaultValue}
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.replace('.', '_').toUpperCase());
+        }
+        return (value == null || value.isBlank()) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Returns an integer setting. Invalid numbers fall back to the default.
+     *
+     * @param key          the property name
+     * @param defaultValue value to use when the setting is missing or invalid
+     * @return the configured value, or {@code defaultValue}
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns a long setting. Invalid numbers fall back to the default.
+     *
+     * @param key          the property name
+     * @param defaultValue value to use when the setting is missing or invalid
+     * @return the configured value, or {@code defaultValue}
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns a boolean setting ({@code true} or {@code false}, case-insensitive).
+     *
+     * @param key          the property name
+     * @param defaultValue value to use when the setting is missing
+     * @return the configured value, or {@code defaultValue}
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,285 @@
+package com.gymmanagement.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * A thread-safe, size- and time-bounded read-through cache.
+ * <p>
+ * Reads are lock-free lookups in a {@link ConcurrentHashMap}. Every entry expires after a
+ * fixed time-to-live; "not found" results (loader returned {@code null}) are cached too, but
+ * with a much shorter TTL so a missing key is never remembered for long.
+ * <p>
+ * When the cache is full, a newly loaded value only replaces the least recently used entry
+ * if it has been requested more often recently (TinyLFU-style admission). Access frequencies
+ * are tracked approximately in a small count-min sketch whose counters are halved periodically,
+ * so one-off lookups cannot flush out entries that are used all day.
+ * <p>
+ * Invalidation is race-free with respect to in-flight loads: a value loaded before an
+ * invalidation started is never stored after it.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // Guarded by policyLock: recency order, frequency sketch and every write to "entries"
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashMap<K, Boolean> recency = new LinkedHashMap<>(16, 0.75f, true);
+    private final int[] sketch;
+    private final int sketchMask;
+    private final int sampleSize;
+    private int sketchAdditions = 0;
+
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param name             name used in statistics
+     * @param maxSize          maximum number of entries
+     * @param ttlMillis        lifetime of a cached value
+     * @param negativeTtlMillis lifetime of a cached "not found" result
+     */
+    public BoundedCache(String name, int maxSize, long ttlMillis, long negativeTtlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+
+        int width = Integer.highestOneBit(Math.max(16, maxSize * 4) - 1) << 1;
+        this.sketch = new int[width * SKETCH_DEPTH];
+        this.sketchMask = width - 1;
+        this.sampleSize = 10 * maxSize;
+    }
+
+    /**
+     * Returns the cached value for a key, loading and caching it on a miss.
+     *
+     * @param key    the key to look up
+     * @param loader computes the value on a miss; may return {@code null} for "not found", and
+     *               should throw (caching nothing) when the value cannot be determined
+     * @return the cached or freshly loaded value (possibly {@code null})
+     */
+    public V get(K key, Function<K, V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            if (System.nanoTime() < entry.expiresAtNanos) {
+                hits.increment();
+                recordHit(key);
+                return entry.value;
+            }
+            removeExpired(key, entry);
+        }
+
+        misses.increment();
+        long epoch = invalidationEpoch.get();
+        V value = loader.apply(key);
+        store(key, value, epoch);
+        return value;
+    }
+
+    /**
+     * Removes one key from the cache.
+     *
+     * @param key the key to remove
+     */
+    public void invalidate(K key) {
+        policyLock.lock();
+        try {
+            invalidationEpoch.incrementAndGet();
+            entries.remove(key);
+            recency.remove(key);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry matching the predicate. Runs in time linear in the cache size,
+     * so it is meant for rare events such as deletes.
+     *
+     * @param predicate receives each key and cached value (which may be {@code null})
+     */
+    public void invalidateIf(BiPredicate<K, V> predicate) {
+        policyLock.lock();
+        try {
+            invalidationEpoch.incrementAndGet();
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> e = it.next();
+                if (predicate.test(e.getKey(), e.getValue().value)) {
+                    it.remove();
+                    recency.remove(e.getKey());
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void invalidateAll() {
+        policyLock.lock();
+        try {
+            invalidationEpoch.incrementAndGet();
+            entries.clear();
+            recency.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return current {@link CacheStats}
+     */
+    public CacheStats getStats() {
+        return new CacheStats(name, entries.size(), hits.sum(), misses.sum(),
+                evictions.sum(), expirations.sum(), rejections.sum());
+    }
+
+    private void recordHit(K key) {
+        // Recording is best-effort: under contention we skip it rather than block the reader
+        if (policyLock.tryLock()) {
+            try {
+                incrementFrequency(key);
+                recency.get(key);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private void removeExpired(K key, Entry<V> entry) {
+        policyLock.lock();
+        try {
+            if (entries.remove(key, entry)) {
+                recency.remove(key);
+                expirations.increment();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void store(K key, V value, long epoch) {
+        long ttl = value == null ? negativeTtlNanos : ttlNanos;
+        if (ttl <= 0) {
+            return;
+        }
+
+        policyLock.lock();
+        try {
+            if (invalidationEpoch.get() != epoch) {
+                // An invalidation ran while we were loading; the value may already be stale
+                return;
+            }
+            incrementFrequency(key);
+
+            if (!recency.containsKey(key) && recency.size() >= maxSize) {
+                K victimKey = recency.keySet().iterator().next();
+                Entry<V> victim = entries.get(victimKey);
+                boolean victimExpired = victim == null || System.nanoTime() >= victim.expiresAtNanos;
+                if (!victimExpired && frequency(key) <= frequency(victimKey)) {
+                    rejections.increment();
+                    return;
+                }
+                recency.remove(victimKey);
+                entries.remove(victimKey);
+                if (victimExpired) {
+                    expirations.increment();
+                } else {
+                    evictions.increment();
+                }
+            }
+
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttl));
+            recency.put(key, Boolean.TRUE);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void incrementFrequency(K key) {
+        int hash = spread(key.hashCode());
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            int index = i * (sketchMask + 1) + indexOf(hash, i);
+            if (sketch[index] < MAX_FREQUENCY) {
+                sketch[index]++;
+            }
+        }
+        if (++sketchAdditions >= sampleSize) {
+            // Age all counters so that old popularity fades out
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] >>>= 1;
+            }
+            sketchAdditions = 0;
+        }
+    }
+
+    private int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_FREQUENCY;
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            min = Math.min(min, sketch[i * (sketchMask + 1) + indexOf(hash, i)]);
+        }
+        return min;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * (0x9E3779B9 + (row << 1));
+        h ^= h >>> 16;
+        return h & sketchMask;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 17;
+        h *= 0xed5ad4bb;
+        h ^= h >>> 11;
+        return h;
+    }
+
+    /**
+     * A cached value and the time at which it expires.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtNanos;
+
+        private Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.gymmanagement.util;
+
+/**
+ * Immutable snapshot of the counters kept by a {@link BoundedCache}.
+ */
+public class CacheStats {
+
+    private final String cacheName;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long rejections;
+
+    public CacheStats(String cacheName, int size, long hits, long misses,
+                      long evictions, long expirations, long rejections) {
+        this.cacheName = cacheName;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.rejections = rejections;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Returns how many loaded values were not admitted because they were
+     * less popular than the entry they would have replaced.
+     *
+     * @return number of rejected admissions
+     */
+    public long getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Returns the fraction of lookups served from the cache.
+     *
+     * @return hit ratio between 0.0 and 1.0
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : hits / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "cache='" + cacheName + '\'' +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", hitRatio=" + String.format("%.2f", getHitRatio()) +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", rejections=" + rejections +
+                '}';
+    }
+}
@@ -0,0 +1,437 @@
+package com.gymmanagement.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small, bounded JDBC connection pool.
+ * <p>
+ * Physical connections are opened lazily (up to {@code maxSize}) and handed out wrapped in a
+ * proxy whose {@link Connection#close()} returns the connection to the pool instead of closing
+ * it. This means DAO code can keep using try-with-resources exactly as before.
+ * <p>
+ * A background housekeeping thread evicts connections that have been idle for longer than
+ * the idle timeout (while keeping at least {@code minIdle} around) and tops the pool back up
+ * to {@code minIdle}. Connections that have been idle for a while are validated before reuse.
+ * <p>
+ * Each physical connection also carries a {@link StatementCache}, so repeated calls to
+ * {@code prepareStatement(sql)} with the same SQL reuse one server-side prepared statement.
+ */
+public class ConnectionPool {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static final long VALIDATION_INTERVAL_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 30_000;
+
+    private final String name;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minIdle;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder totalAcquireWaitNanos = new LongAdder();
+    private final AtomicLong maxAcquireWaitNanos = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * Creates a new pool. No connections are opened until the first housekeeping run
+     * or the first call to {@link #getConnection()}.
+     *
+     * @param name                 name used in log messages and statistics
+     * @param url                  JDBC URL
+     * @param user                 database user
+     * @param password             database password
+     * @param minIdle              number of idle connections to keep open
+     * @param maxSize              maximum number of physical connections
+     * @param idleTimeoutMillis    idle time after which surplus connections are closed
+     * @param acquireTimeoutMillis how long a caller may wait for a free connection
+     * @param statementCacheSize   prepared statements cached per connection (0 disables the cache)
+     */
+    public ConnectionPool(String name, String url, String user, String password,
+                          int minIdle, int maxSize, long idleTimeoutMillis, long acquireTimeoutMillis,
+                          int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.name = name;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-" + name + "-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep,
+                0, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the acquire timeout if all
+     * connections are in use. Closing the returned connection gives it back to the pool.
+     *
+     * @return a pooled {@link Connection}
+     * @throws SQLException if no connection became available in time or one could not be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool '" + name + "' has been shut down.", "08003");
+        }
+
+        long start = System.nanoTime();
+        waitingThreads.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", "08001", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+
+        if (!acquired) {
+            acquireTimeouts.increment();
+            LOGGER.warning("Timed out waiting for a connection from pool '" + name + "': " + getStats());
+            throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMillis +
+                    " ms waiting for a connection from pool '" + name + "'.", "08001");
+        }
+
+        try {
+            PhysicalConnection pc = takeOrCreate(start);
+            long waited = System.nanoTime() - start;
+            acquireCount.increment();
+            totalAcquireWaitNanos.add(waited);
+            maxAcquireWaitNanos.accumulateAndGet(waited, Math::max);
+            activeConnections.incrementAndGet();
+            return wrap(pc);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool counters.
+     *
+     * @return current {@link PoolStats}
+     */
+    public PoolStats getStats() {
+        return new PoolStats(name, totalConnections.get(), activeConnections.get(), idle.size(),
+                waitingThreads.get(), acquireCount.sum(), acquireTimeouts.sum(),
+                totalAcquireWaitNanos.sum(), maxAcquireWaitNanos.get(),
+                statementCacheHits.sum(), statementCacheMisses.sum(), statementCacheEvictions.sum());
+    }
+
+    /**
+     * Returns whether an exception means the connection itself is unusable
+     * (SQLSTATE class 08, "connection exception").
+     *
+     * @param e the exception to inspect
+     * @return {@code true} for connection-level failures
+     */
+    static boolean isConnectionError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeping thread. Connections that are
+     * still borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PhysicalConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+        LOGGER.info("Connection pool '" + name + "' shut down.");
+    }
+
+    /**
+     * Wraps a physical connection in the proxy handed to callers. The proxy
+     * routes {@code close()} back into the pool.
+     */
+    private Connection wrap(PhysicalConnection pc) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(pc));
+    }
+
+    private PhysicalConnection takeOrCreate(long startNanos) throws SQLException {
+        while (true) {
+            PhysicalConnection pc = idle.pollFirst();
+            if (pc != null) {
+                if (isUsable(pc)) {
+                    return pc;
+                }
+                discard(pc);
+                continue;
+            }
+
+            if (reserveSlot()) {
+                try {
+                    return open();
+                } catch (SQLException e) {
+                    totalConnections.decrementAndGet();
+                    throw e;
+                }
+            }
+
+            // Every slot is taken by an idle connection that another thread is about to grab
+            // (or the housekeeper just opened one); wait briefly for it to show up.
+            long remaining = acquireTimeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            try {
+                pc = idle.pollFirst(Math.max(1, remaining), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection.", "08001", e);
+            }
+            if (pc != null) {
+                if (isUsable(pc)) {
+                    return pc;
+                }
+                discard(pc);
+            } else if (remaining <= 0) {
+                acquireTimeouts.increment();
+                throw new SQLTransientConnectionException("Timed out waiting for a connection from pool '" +
+                        name + "'.", "08001");
+            }
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        LOGGER.fine("Opening new connection for pool '" + name + "' to " + url);
+        Connection connection = DriverManager.getConnection(url, user, password);
+        return new PhysicalConnection(connection, new StatementCache(connection, statementCacheSize,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions));
+    }
+
+    private boolean isUsable(PhysicalConnection pc) {
+        if (System.currentTimeMillis() - pc.lastUsedMillis < VALIDATION_INTERVAL_MILLIS) {
+            return true;
+        }
+        try {
+            return pc.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PhysicalConnection pc, boolean broken) {
+        activeConnections.decrementAndGet();
+        try {
+            if (broken || shutdown || pc.connection.isClosed()) {
+                discard(pc);
+                return;
+            }
+            if (!pc.connection.getAutoCommit()) {
+                // Never hand out a connection with a half-finished transaction
+                pc.connection.rollback();
+                pc.connection.setAutoCommit(true);
+            }
+            if (pc.connection.isReadOnly()) {
+                pc.connection.setReadOnly(false);
+            }
+            pc.connection.clearWarnings();
+            pc.lastUsedMillis = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Discarding connection that could not be reset in pool '" + name + "'", e);
+            discard(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PhysicalConnection pc) {
+        totalConnections.decrementAndGet();
+        try {
+            pc.statements.closeAll();
+            pc.connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing pooled connection", e);
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            // Least recently used connections sit at the tail of the deque
+            Iterator<PhysicalConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PhysicalConnection pc = it.next();
+                if (now - pc.lastUsedMillis > idleTimeoutMillis && idle.removeLastOccurrence(pc)) {
+                    discard(pc);
+                }
+            }
+
+            while (!shutdown && idle.size() < minIdle && reserveSlot()) {
+                try {
+                    idle.offerLast(open());
+                } catch (SQLException e) {
+                    totalConnections.decrementAndGet();
+                    LOGGER.log(Level.WARNING, "Pool '" + name + "' could not open an idle connection", e);
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unexpected error during housekeeping of pool '" + name + "'", e);
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool, plus the bookkeeping needed for eviction.
+     */
+    private static final class PhysicalConnection {
+        private final Connection connection;
+        private final StatementCache statements;
+        private volatile long lastUsedMillis;
+
+        private PhysicalConnection(Connection connection, StatementCache statements) {
+            this.connection = connection;
+            this.statements = statements;
+            this.lastUsedMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Invocation handler behind the {@link Connection} proxies handed to callers.
+     * Everything is delegated to the physical connection except {@code close()} and
+     * {@code isClosed()}, which only affect this logical handle, and the simple
+     * {@code prepareStatement} overloads, which go through the {@link StatementCache}.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+
+        private final PhysicalConnection pc;
+        private boolean closed = false;
+        private boolean broken = false;
+
+        private PooledConnectionHandler(PhysicalConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pc, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + name + "]@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool.", "08003");
+            }
+
+            try {
+                if ("prepareStatement".equals(method.getName())) {
+                    PreparedStatement cached = prepareCached((Connection) proxy, method, args);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+                return method.invoke(pc.connection, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+                    // Connection-level failure: do not put this connection back in the pool
+                    broken = true;
+                }
+                throw cause;
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    broken = true;
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Serves {@code prepareStatement(sql)} and {@code prepareStatement(sql, autoGeneratedKeys)}
+         * from the statement cache. Other overloads return {@code null} and are not cached.
+         */
+        private PreparedStatement prepareCached(Connection proxy, Method method, Object[] args) throws SQLException {
+            Class<?>[] types = method.getParameterTypes();
+            if (types.length == 1) {
+                return pc.statements.prepare(proxy, (String) args[0], Statement.NO_GENERATED_KEYS,
+                        () -> broken = true);
+            }
+            if (types.length == 2 && types[1] == int.class) {
+                return pc.statements.prepare(proxy, (String) args[0], (Integer) args[1],
+                        () -> broken = true);
+            }
+            return null;
+        }
+    }
+}
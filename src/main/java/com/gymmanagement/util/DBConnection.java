@@ -1,25 +1,58 @@
 package com.gymmanagement.util;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Utility class responsible for creating JDBC connections to the PostgreSQL database.
+ * Utility class responsible for handing out JDBC connections to the PostgreSQL database.
  * <p>
- * The database URL, username, and password are configured as constants in this class.
+ * Connections come from a shared, bounded {@link ConnectionPool}, so closing a connection
+ * returns it to the pool rather than tearing down the TCP session. The database URL,
+ * username, password and pool sizes default to the constants in this class and can be
+ * overridden through {@link AppConfig} (e.g. {@code -Dgym.db.url=...}).
  * Other parts of the application should always obtain a connection via {@link #getConnection()}.
+ * <p>
+ * When a read replica is configured ({@code gym.db.replica.url}), DAO methods that only read
+ * can use {@link #getReadConnection()} instead, which routes to the replica pool. To give
+ * read-your-writes behaviour, a thread that has just borrowed a primary connection keeps
+ * reading from the primary for a short "stickiness" window ({@code gym.db.replica.stickinessMs}).
+ * Stickiness is tracked per thread; the console application serves one session on its
+ * main thread, so in practice it is per session.
+ * <p>
+ * Inside {@link UnitOfWork#inTransaction} both methods return the transaction's connection.
  */
 public class DBConnection {
 
     private static final Logger LOGGER = LoggerUtil.getLogger();
 
-    // TODO: change these to your actual PostgreSQL details
-    private static final String URL = "jdbc:postgresql://localhost:5432/gym_management_db";
-    private static final String USER = "postgres";
-    private static final String PASSWORD = "your_password_here";
+    // TODO: change these to your actual PostgreSQL details (or pass -Dgym.db.url etc.)
+    private static final String URL =
+            AppConfig.getString("gym.db.url", "jdbc:postgresql://localhost:5432/gym_management_db");
+    private static final String USER = AppConfig.getString("gym.db.user", "postgres");
+    private static final String PASSWORD = AppConfig.getString("gym.db.password", "your_password_here");
+
+    private static final int POOL_MIN_IDLE = AppConfig.getInt("gym.db.pool.minIdle", 2);
+    private static final int POOL_MAX_SIZE = AppConfig.getInt("gym.db.pool.maxSize", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = AppConfig.getLong("gym.db.pool.idleTimeoutMs", 600_000L);
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = AppConfig.getLong("gym.db.pool.acquireTimeoutMs", 5_000L);
+    private static final int STATEMENT_CACHE_SIZE = AppConfig.getInt("gym.db.statementCacheSize", 64);
+
+    // Optional read replica; leave gym.db.replica.url unset to send all reads to the primary
+    private static final String REPLICA_URL = AppConfig.getString("gym.db.replica.url", null);
+    private static final String REPLICA_USER = AppConfig.getString("gym.db.replica.user", USER);
+    private static final String REPLICA_PASSWORD = AppConfig.getString("gym.db.replica.password", PASSWORD);
+    private static final long REPLICA_STICKINESS_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("gym.db.replica.stickinessMs", 5_000L));
+
+    private static final ThreadLocal<Long> LAST_WRITE_NANOS = new ThreadLocal<>();
+    private static final LongAdder READS_ON_REPLICA = new LongAdder();
+    private static final LongAdder READS_ON_PRIMARY = new LongAdder();
 
     static {
         try {
@@ -31,14 +64,153 @@ public class DBConnection {
         }
     }
 
+    private static final ConnectionPool POOL = new ConnectionPool("primary", URL, USER, PASSWORD,
+            POOL_MIN_IDLE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS, POOL_ACQUIRE_TIMEOUT_MS, STATEMENT_CACHE_SIZE);
+
+    private static final ConnectionPool REPLICA_POOL = REPLICA_URL == null ? null
+            : new ConnectionPool("replica", REPLICA_URL, REPLICA_USER, REPLICA_PASSWORD,
+            POOL_MIN_IDLE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS, POOL_ACQUIRE_TIMEOUT_MS, STATEMENT_CACHE_SIZE);
+
+    private DBConnection() {
+        // utility class
+    }
+
     /**
-     * Creates and returns a new database connection using the configured URL, username, and password.
+     * Borrows a primary database connection from the shared pool. Callers must close the
+     * connection (ideally with try-with-resources) to return it to the pool.
+     * <p>
+     * The primary is used for anything that may write, so borrowing one starts the
+     * read-your-writes window for the current thread.
      *
-     * @return a new {@link Connection} instance
-     * @throws SQLException if the connection cannot be established
+     * @return a pooled {@link Connection} instance
+     * @throws SQLException if no connection could be obtained within the acquire timeout
      */
     public static Connection getConnection() throws SQLException {
-        LOGGER.fine("Attempting to connect to database: " + URL);
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        Connection bound = UnitOfWork.currentConnection();
+        if (bound != null) {
+            return nonClosing(bound);
+        }
+        Connection conn = POOL.getConnection();
+        if (REPLICA_POOL != null) {
+            LAST_WRITE_NANOS.set(System.nanoTime());
+        }
+        return conn;
+    }
+
+    /**
+     * Borrows a connection for a read-only operation. Goes to the read replica when one
+     * is configured, unless the current thread wrote to the primary within the stickiness
+     * window or the replica cannot be reached, in which case the primary is used.
+     *
+     * @return a pooled {@link Connection} instance that must only be used for reads
+     * @throws SQLException if no connection could be obtained within the acquire timeout
+     */
+    public static Connection getReadConnection() throws SQLException {
+        Connection bound = UnitOfWork.currentConnection();
+        if (bound != null) {
+            return nonClosing(bound);
+        }
+        if (REPLICA_POOL == null || recentlyWrote()) {
+            READS_ON_PRIMARY.increment();
+            return POOL.getConnection();
+        }
+        Connection conn = null;
+        try {
+            conn = REPLICA_POOL.getConnection();
+            conn.setReadOnly(true);
+            READS_ON_REPLICA.increment();
+            return conn;
+        } catch (SQLException e) {
+            if (conn != null) {
+                // Borrowed but unusable: give it back before falling back
+                try {
+                    conn.close();
+                } catch (SQLException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            LOGGER.log(Level.WARNING, "Read replica unavailable, falling back to primary", e);
+            READS_ON_PRIMARY.increment();
+            return POOL.getConnection();
+        }
+    }
+
+    /**
+     * Wraps the transaction's connection so that DAO try-with-resources blocks
+     * do not return it to the pool before the transaction ends.
+     */
+    private static Connection nonClosing(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                DBConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "isClosed":
+                            return false;
+                        default:
+                            try {
+                                return method.invoke(conn, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    private static boolean recentlyWrote() {
+        Long lastWrite = LAST_WRITE_NANOS.get();
+        return lastWrite != null && System.nanoTime() - lastWrite < REPLICA_STICKINESS_NANOS;
+    }
+
+    /**
+     * Returns a snapshot of the connection pool counters (active, idle, waiting,
+     * acquire wait times, prepared statement cache hits and misses).
+     *
+     * @return current {@link PoolStats}
+     */
+    public static PoolStats getPoolStats() {
+        return POOL.getStats();
+    }
+
+    /**
+     * Returns a snapshot of the replica pool counters.
+     *
+     * @return replica {@link PoolStats}, or {@code null} if no replica is configured
+     */
+    public static PoolStats getReplicaPoolStats() {
+        return REPLICA_POOL == null ? null : REPLICA_POOL.getStats();
+    }
+
+    /**
+     * Returns how many read-only connections were served by the replica.
+     *
+     * @return number of reads routed to the replica
+     */
+    public static long getReplicaReadCount() {
+        return READS_ON_REPLICA.sum();
+    }
+
+    /**
+     * Returns how many read-only connections were served by the primary, either because no
+     * replica is configured, the thread had just written, or the replica was unreachable.
+     *
+     * @return number of reads routed to the primary
+     */
+    public static long getPrimaryReadCount() {
+        return READS_ON_PRIMARY.sum();
+    }
+
+    /**
+     * Closes all pooled connections. Called when the application exits.
+     */
+    public static void shutdown() {
+        LOGGER.info("Final connection pool statistics: " + POOL.getStats());
+        POOL.shutdown();
+        if (REPLICA_POOL != null) {
+            LOGGER.info("Final replica pool statistics: " + REPLICA_POOL.getStats());
+            REPLICA_POOL.shutdown();
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.gymmanagement.util;
+
+import java.sql.SQLException;
+
+/**
+ * Unchecked exception thrown when a database operation fails in a place where a
+ * {@link SQLException} cannot be propagated (for example when a transaction
+ * cannot be started or committed, or while iterating a streamed result).
+ */
+public class DataAccessException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Returns the SQLSTATE of the {@link SQLException} that caused this exception.
+     *
+     * @return the SQLSTATE code, or {@code null} if the cause is not an {@link SQLException}
+     */
+    public String getSQLState() {
+        return getCause() instanceof SQLException ? ((SQLException) getCause()).getSQLState() : null;
+    }
+}
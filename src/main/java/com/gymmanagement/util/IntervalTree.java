@@ -0,0 +1,308 @@
+package com.gymmanagement.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Balanced (AVL) interval tree over half-open intervals {@code [low, high)} of {@code long}s,
+ * each carrying a value.
+ * <p>
+ * Nodes are ordered by {@code low}, then {@code high}, then value, and every node also keeps
+ * the largest {@code high} in its subtree. That lets stabbing and overlap queries skip whole
+ * subtrees, so they run in {@code O(log n + k)} for {@code k} results, while inserts and
+ * removals stay {@code O(log n)}.
+ * <p>
+ * The same interval may be stored several times with different values. The tree is not
+ * thread-safe; callers must synchronize access themselves.
+ *
+ * @param <T> type of the value attached to each interval
+ */
+public class IntervalTree<T extends Comparable<? super T>> {
+
+    private Node<T> root;
+    private int size;
+
+    /**
+     * Adds an interval. Adding an interval/value pair that is already present has no effect.
+     *
+     * @param low   start of the interval (inclusive)
+     * @param high  end of the interval (exclusive); must be greater than {@code low}
+     * @param value value attached to the interval
+     * @return {@code true} if the interval was added
+     * @throws IllegalArgumentException if the interval is empty
+     */
+    public boolean add(long low, long high, T value) {
+        if (high <= low) {
+            throw new IllegalArgumentException("Empty interval [" + low + ", " + high + ")");
+        }
+        int before = size;
+        root = insert(root, low, high, value);
+        return size > before;
+    }
+
+    /**
+     * Removes an interval/value pair.
+     *
+     * @param low   start of the interval (inclusive)
+     * @param high  end of the interval (exclusive)
+     * @param value value attached to the interval
+     * @return {@code true} if the pair was present
+     */
+    public boolean remove(long low, long high, T value) {
+        int before = size;
+        root = delete(root, low, high, value);
+        return size < before;
+    }
+
+    /**
+     * Returns every interval that contains a point.
+     *
+     * @param point the point to look up
+     * @return matching intervals ordered by start
+     */
+    public List<Interval<T>> findContaining(long point) {
+        return findOverlapping(point, point + 1);
+    }
+
+    /**
+     * Returns every interval that overlaps {@code [low, high)}.
+     *
+     * @param low  start of the range (inclusive)
+     * @param high end of the range (exclusive)
+     * @return overlapping intervals ordered by start
+     */
+    public List<Interval<T>> findOverlapping(long low, long high) {
+        List<Interval<T>> result = new ArrayList<>();
+        collectOverlapping(root, low, high, result);
+        return result;
+    }
+
+    /**
+     * Tells whether any interval overlaps {@code [low, high)}.
+     *
+     * @param low  start of the range (inclusive)
+     * @param high end of the range (exclusive)
+     * @return {@code true} if at least one stored interval overlaps the range
+     */
+    public boolean overlapsAny(long low, long high) {
+        Node<T> node = root;
+        while (node != null) {
+            if (node.low < high && low < node.high) {
+                return true;
+            }
+            // If the left subtree reaches past our start it must contain an overlap whenever
+            // any overlap exists, because all of it starts no later than this node
+            if (node.left != null && node.left.maxHigh > low) {
+                node = node.left;
+            } else if (node.low < high) {
+                node = node.right;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of stored intervals.
+     *
+     * @return interval count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the height of the tree; exposed so tests can check that it stays balanced.
+     */
+    int height() {
+        return height(root);
+    }
+
+    /**
+     * Removes every interval.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    private void collectOverlapping(Node<T> node, long low, long high, List<Interval<T>> result) {
+        if (node == null || node.maxHigh <= low) {
+            return;
+        }
+        collectOverlapping(node.left, low, high, result);
+        if (node.low >= high) {
+            // This node and everything to its right start too late
+            return;
+        }
+        if (low < node.high) {
+            result.add(new Interval<>(node.low, node.high, node.value));
+        }
+        collectOverlapping(node.right, low, high, result);
+    }
+
+    private Node<T> insert(Node<T> node, long low, long high, T value) {
+        if (node == null) {
+            size++;
+            return new Node<>(low, high, value);
+        }
+        int cmp = compare(low, high, value, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, low, high, value);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, low, high, value);
+        } else {
+            return node;
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> delete(Node<T> node, long low, long high, T value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(low, high, value, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, low, high, value);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, low, high, value);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.left = node.left;
+            successor.right = node.right;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> removeMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private int compare(long low, long high, T value, Node<T> node) {
+        int cmp = Long.compare(low, node.low);
+        if (cmp == 0) {
+            cmp = Long.compare(high, node.high);
+        }
+        return cmp != 0 ? cmp : value.compareTo(node.value);
+    }
+
+    private Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxHigh = node.high;
+        if (node.left != null) {
+            maxHigh = Math.max(maxHigh, node.left.maxHigh);
+        }
+        if (node.right != null) {
+            maxHigh = Math.max(maxHigh, node.right.maxHigh);
+        }
+        node.maxHigh = maxHigh;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * A stored interval and its value.
+     *
+     * @param <T> type of the value
+     */
+    public static final class Interval<T> {
+        private final long low;
+        private final long high;
+        private final T value;
+
+        private Interval(long low, long high, T value) {
+            this.low = low;
+            this.high = high;
+            this.value = value;
+        }
+
+        public long getLow() {
+            return low;
+        }
+
+        public long getHigh() {
+            return high;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + low + ", " + high + ")=" + value;
+        }
+    }
+
+    private static final class Node<T> {
+        private final long low;
+        private final long high;
+        private final T value;
+        private long maxHigh;
+        private int height = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(long low, long high, T value) {
+            this.low = low;
+            this.high = high;
+            this.value = value;
+            this.maxHigh = high;
+        }
+    }
+}
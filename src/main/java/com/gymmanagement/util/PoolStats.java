@@ -0,0 +1,128 @@
+package com.gymmanagement.util;
+
+/**
+ * Immutable snapshot of the counters kept by a {@link ConnectionPool}.
+ * <p>
+ * Snapshots are cheap to take and are meant for logging and for the
+ * admin "system metrics" screen.
+ */
+public class PoolStats {
+
+    private final String poolName;
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waitingThreads;
+    private final long acquireCount;
+    private final long acquireTimeouts;
+    private final long totalAcquireWaitNanos;
+    private final long maxAcquireWaitNanos;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStats(String poolName, int totalConnections, int activeConnections,
+                     int idleConnections, int waitingThreads, long acquireCount,
+                     long acquireTimeouts, long totalAcquireWaitNanos, long maxAcquireWaitNanos,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.poolName = poolName;
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingThreads = waitingThreads;
+        this.acquireCount = acquireCount;
+        this.acquireTimeouts = acquireTimeouts;
+        this.totalAcquireWaitNanos = totalAcquireWaitNanos;
+        this.maxAcquireWaitNanos = maxAcquireWaitNanos;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts;
+    }
+
+    /**
+     * Returns the average time callers waited to obtain a connection.
+     *
+     * @return average acquire wait in milliseconds
+     */
+    public double getAverageAcquireWaitMillis() {
+        return acquireCount == 0 ? 0.0 : (totalAcquireWaitNanos / (double) acquireCount) / 1_000_000.0;
+    }
+
+    /**
+     * Returns the longest time any caller waited to obtain a connection.
+     *
+     * @return maximum acquire wait in milliseconds
+     */
+    public double getMaxAcquireWaitMillis() {
+        return maxAcquireWaitNanos / 1_000_000.0;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    /**
+     * Returns the fraction of {@code prepareStatement} calls served from the statement cache.
+     *
+     * @return hit ratio between 0.0 and 1.0
+     */
+    public double getStatementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : statementCacheHits / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "pool='" + poolName + '\'' +
+                ", total=" + totalConnections +
+                ", active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", waiting=" + waitingThreads +
+                ", acquired=" + acquireCount +
+                ", timeouts=" + acquireTimeouts +
+                ", avgWaitMs=" + String.format("%.3f", getAverageAcquireWaitMillis()) +
+                ", maxWaitMs=" + String.format("%.3f", getMaxAcquireWaitMillis()) +
+                ", stmtCacheHits=" + statementCacheHits +
+                ", stmtCacheMisses=" + statementCacheMisses +
+                ", stmtCacheEvictions=" + statementCacheEvictions +
+                ", stmtCacheHitRatio=" + String.format("%.2f", getStatementCacheHitRatio()) +
+                '}';
+    }
+}
@@ -0,0 +1,16 @@
+package com.gymmanagement.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Turns the current row of a {@link ResultSet} into an object.
+ * The DAOs' private {@code mapRowTo...} methods fit this interface.
+ *
+ * @param <T> type of object produced
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,188 @@
+package com.gymmanagement.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the database schema up to date by applying versioned SQL scripts.
+ * <p>
+ * Scripts live on the classpath under {@code db/migration} and are named
+ * {@code V<version>__<description>.sql}; they are listed in {@link #SCRIPTS} in the order they
+ * must run. Applied versions are recorded in a {@code schema_version} table, so each script runs
+ * once per database. Every script runs in its own transaction while holding an advisory lock,
+ * which makes it safe for several application instances to start at the same time.
+ * <p>
+ * Scripts must be idempotent ({@code IF NOT EXISTS}, {@code IF EXISTS},
+ * {@code CREATE OR REPLACE}, ...), because {@code sql/schema.sql} already contains their end
+ * result and drops {@code schema_version}, after which every script runs again.
+ */
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static final String SCRIPT_LOCATION = "db/migration/";
+
+    /**
+     * Migration scripts in the order they are applied. Append new scripts to the end.
+     */
+    static final String[] SCRIPTS = {
+            "V1__baseline.sql",
+            "V2__hot_path_indexes.sql",
+            "V3__user_soft_delete.sql",
+            "V4__revenue_totals.sql",
+            "V5__monthly_revenue_rollup.sql",
+            "V6__membership_expiry_scan.sql",
+            "V7__class_bookings.sql",
+            "V8__class_waitlist.sql",
+            "V9__class_duration.sql"
+    };
+
+    // Arbitrary key shared by every instance of this application
+    private static final long ADVISORY_LOCK_KEY = 0x67796d5f6d6967L;
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Applies every script that has not yet been applied to the primary database.
+     *
+     * @return the versions that were applied by this call (empty if the schema was up to date)
+     * @throws DataAccessException if a script fails; earlier scripts stay applied
+     */
+    public static List<Integer> migrate() {
+        List<Integer> applied = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection()) {
+            createVersionTable(conn);
+            for (String script : SCRIPTS) {
+                if (applyIfNeeded(conn, script)) {
+                    applied.add(versionOf(script));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.log(Level.SEVERE, "Schema migration failed", e);
+            throw new DataAccessException("Schema migration failed: " + e.getMessage(), e);
+        }
+
+        if (applied.isEmpty()) {
+            LOGGER.info("Database schema is up to date (version " + versionOf(SCRIPTS[SCRIPTS.length - 1]) + ")");
+        } else {
+            LOGGER.info("Applied schema migrations: " + applied);
+        }
+        return applied;
+    }
+
+    private static void createVersionTable(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            // Under the lock too: two instances racing on CREATE TABLE IF NOT EXISTS can
+            // both see the table missing, and one then fails on the catalog's unique index
+            lock(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INT PRIMARY KEY, " +
+                        "description VARCHAR(200) NOT NULL, " +
+                        "checksum BIGINT NOT NULL, " +
+                        "installed_at TIMESTAMP NOT NULL DEFAULT now())");
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static boolean applyIfNeeded(Connection conn, String script) throws SQLException, IOException {
+        int version = versionOf(script);
+        String sql = readScript(script);
+        long checksum = checksumOf(sql);
+
+        conn.setAutoCommit(false);
+        try {
+            lock(conn);
+
+            Long appliedChecksum = null;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT checksum FROM schema_version WHERE version = ?")) {
+                stmt.setInt(1, version);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        appliedChecksum = rs.getLong("checksum");
+                    }
+                }
+            }
+            if (appliedChecksum != null) {
+                if (appliedChecksum != checksum) {
+                    LOGGER.warning("Migration " + script + " has changed since it was applied; " +
+                            "add a new script instead of editing an applied one");
+                }
+                conn.rollback();
+                return false;
+            }
+
+            LOGGER.info("Applying schema migration " + script);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sql);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)")) {
+                stmt.setInt(1, version);
+                stmt.setString(2, descriptionOf(script));
+                stmt.setLong(3, checksum);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Takes the migration lock until the current transaction ends.
+     */
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement lock = conn.prepareStatement("SELECT pg_advisory_xact_lock(?)")) {
+            lock.setLong(1, ADVISORY_LOCK_KEY);
+            lock.execute();
+        }
+    }
+
+    private static String readScript(String script) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(SCRIPT_LOCATION + script)) {
+            if (in == null) {
+                throw new IOException("Migration script not found on classpath: " + SCRIPT_LOCATION + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int versionOf(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+
+    private static String descriptionOf(String script) {
+        return script.substring(script.indexOf("__") + 2, script.length() - ".sql".length()).replace('_', ' ');
+    }
+
+    private static long checksumOf(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
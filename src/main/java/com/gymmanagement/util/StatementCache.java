@@ -0,0 +1,244 @@
+package com.gymmanagement.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-connection cache of {@link PreparedStatement}s keyed by SQL text.
+ * <p>
+ * Each physical connection in the {@link ConnectionPool} owns one cache. When DAO code calls
+ * {@code conn.prepareStatement(sql)} the cached statement for that SQL is handed out again
+ * (wrapped so that {@code close()} only returns it to the cache), which lets the PostgreSQL
+ * driver switch to a named server-side statement and reuse its plan. The cache is bounded
+ * and evicts the least recently used statement when full.
+ * <p>
+ * A connection is only ever used by one thread at a time, so this class is not thread-safe;
+ * the hit/miss/eviction counters are shared with the pool and are.
+ */
+public class StatementCache {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private final Connection physicalConnection;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    /**
+     * Creates a cache for one physical connection.
+     *
+     * @param physicalConnection the connection the statements are prepared on
+     * @param maxSize            maximum number of cached statements
+     * @param hits               shared counter of cache hits
+     * @param misses             shared counter of cache misses
+     * @param evictions          shared counter of LRU evictions
+     */
+    public StatementCache(Connection physicalConnection, int maxSize,
+                          LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.physicalConnection = physicalConnection;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    StatementCache.this.evictions.increment();
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one when possible.
+     *
+     * @param logicalConnection the pooled connection proxy the caller is holding
+     * @param sql               SQL text
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}
+     * @param onConnectionError called when a statement fails with a connection-level error
+     * @return a statement whose {@code close()} returns it to the cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(Connection logicalConnection, String sql, int autoGeneratedKeys,
+                                     Runnable onConnectionError) throws SQLException {
+        if (maxSize <= 0) {
+            return physicalConnection.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        String key = autoGeneratedKeys + ":" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && cached.evicted) {
+            // Failed to reset or hit a connection error earlier; drop it and prepare afresh
+            statements.remove(key);
+            cached = null;
+        }
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            cached.inUse = true;
+            return cached.wrap(logicalConnection, onConnectionError);
+        }
+
+        misses.increment();
+        PreparedStatement stmt = physicalConnection.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // Same SQL is already open on this connection (e.g. a nested call); use a throwaway one.
+            return stmt;
+        }
+        cached = new CachedStatement(stmt);
+        cached.inUse = true;
+        statements.put(key, cached);
+        return cached.wrap(logicalConnection, onConnectionError);
+    }
+
+    /**
+     * Physically closes every cached statement. Called before the connection itself is closed.
+     */
+    public void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    /**
+     * A cached statement plus its state. {@code inUse} is set while a caller holds it.
+     */
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse = false;
+        private boolean evicted = false;
+        private boolean settingsChanged = false;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private PreparedStatement wrap(Connection logicalConnection, Runnable onConnectionError) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new CachedStatementHandler(this, logicalConnection, onConnectionError));
+        }
+
+        /**
+         * Puts the statement back in a clean state once the caller is done with it.
+         */
+        private void returnToCache() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                ResultSet open = statement.getResultSet();
+                if (open != null) {
+                    open.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                if (settingsChanged) {
+                    statement.setFetchSize(0);
+                    statement.setMaxRows(0);
+                    statement.setQueryTimeout(0);
+                    settingsChanged = false;
+                }
+            } catch (SQLException e) {
+                evicted = true;
+                closeQuietly();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Error closing cached statement", e);
+            }
+        }
+    }
+
+    /**
+     * Invocation handler for the statement proxies handed to DAO code.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+
+        private final CachedStatement cached;
+        private final Connection logicalConnection;
+        private final Runnable onConnectionError;
+        private boolean closed = false;
+
+        private CachedStatementHandler(CachedStatement cached, Connection logicalConnection,
+                                       Runnable onConnectionError) {
+            this.cached = cached;
+            this.logicalConnection = logicalConnection;
+            this.onConnectionError = onConnectionError;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.returnToCache();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return logicalConnection;
+                case "setFetchSize":
+                case "setMaxRows":
+                case "setQueryTimeout":
+                    cached.settingsChanged = true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has already been closed.");
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && ConnectionPool.isConnectionError((SQLException) cause)) {
+                    cached.evicted = true;
+                    onConnectionError.run();
+                }
+                throw cause;
+            }
+        }
+    }
+}
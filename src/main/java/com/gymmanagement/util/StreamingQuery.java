@@ -0,0 +1,155 @@
+package com.gymmanagement.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs read-only queries whose results are streamed row by row instead of being collected
+ * into a list, so exports and reports over very large tables run in constant memory.
+ * <p>
+ * The PostgreSQL driver only fetches rows in batches (a server-side cursor) when auto-commit
+ * is off and a fetch size is set, so the query runs inside a transaction: the current
+ * {@link UnitOfWork} if there is one, otherwise a short read-only transaction on a pooled
+ * connection that is rolled back when the connection goes back to the pool. The batch size is
+ * {@code gym.db.streamFetchSize} (default 500).
+ * <p>
+ * The returned stream holds a connection until it is closed, so always use it in a
+ * try-with-resources block. It is also released as soon as the last row has been read.
+ * <pre>
+ * try (Stream&lt;Membership&gt; rows = membershipDAO.streamAllMemberships()) {
+ *     rows.forEach(...);
+ * }
+ * </pre>
+ */
+public class StreamingQuery {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static final int FETCH_SIZE = AppConfig.getInt("gym.db.streamFetchSize", 500);
+
+    private StreamingQuery() {
+    }
+
+    /**
+     * Runs a query and returns its rows as a lazily populated stream.
+     *
+     * @param sql    the query
+     * @param mapper converts each row
+     * @param params values for the query's {@code ?} placeholders, in order
+     * @param <T>    row type
+     * @return a stream of mapped rows that must be closed by the caller
+     * @throws DataAccessException if the query cannot be started or a row cannot be read
+     */
+    public static <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... params) {
+        Cursor<T> cursor = new Cursor<>(mapper);
+        try {
+            cursor.open(sql, params);
+        } catch (SQLException e) {
+            cursor.close();
+            LOGGER.log(Level.SEVERE, "Error starting streaming query: " + sql, e);
+            throw new DataAccessException("Could not start streaming query", e);
+        }
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    /**
+     * Runs a query and passes each row to a consumer, releasing the connection afterwards.
+     *
+     * @param sql      the query
+     * @param mapper   converts each row
+     * @param consumer receives each mapped row
+     * @param params   values for the query's {@code ?} placeholders, in order
+     * @param <T>      row type
+     * @return the number of rows processed
+     * @throws DataAccessException if the query fails
+     */
+    public static <T> long forEach(String sql, RowMapper<T> mapper, Consumer<? super T> consumer, Object... params) {
+        long[] count = {0};
+        try (Stream<T> rows = stream(sql, mapper, params)) {
+            rows.forEach(row -> {
+                consumer.accept(row);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Owns the connection, statement and result set behind one stream.
+     */
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final RowMapper<T> mapper;
+        private Connection conn;
+        private PreparedStatement stmt;
+        private ResultSet rs;
+        private boolean closed = false;
+
+        private Cursor(RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.mapper = mapper;
+        }
+
+        private void open(String sql, Object[] params) throws SQLException {
+            conn = DBConnection.getReadConnection();
+            if (!UnitOfWork.isActive()) {
+                // The pool rolls back and restores auto-commit when the connection is returned
+                conn.setAutoCommit(false);
+            }
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            rs = stmt.executeQuery();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(mapper.map(rs));
+                return true;
+            } catch (SQLException e) {
+                close();
+                LOGGER.log(Level.SEVERE, "Error reading streamed query results", e);
+                throw new DataAccessException("Could not read streamed query results", e);
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            closeQuietly(rs);
+            closeQuietly(stmt);
+            closeQuietly(conn);
+        }
+
+        private static void closeQuietly(AutoCloseable resource) {
+            if (resource == null) {
+                return;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error closing streamed query", e);
+            }
+        }
+    }
+}
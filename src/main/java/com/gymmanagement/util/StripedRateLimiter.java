@@ -0,0 +1,162 @@
+package com.gymmanagement.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter keyed by an arbitrary string (a username, a client address, ...).
+ * <p>
+ * Every key gets its own bucket holding up to {@code capacity} tokens, refilled continuously
+ * at {@code refillPerSecond}. Each attempt takes one token; when the bucket is empty the attempt
+ * is rejected. Buckets are spread over a fixed number of independently locked stripes, so
+ * threads working on different keys almost never contend for the same lock.
+ * <p>
+ * Buckets that have refilled completely carry no information, so they are dropped whenever
+ * a stripe grows past a threshold (which doubles while most buckets are still in use); memory
+ * use stays proportional to the number of keys that were active recently.
+ */
+public class StripedRateLimiter {
+
+    private static final int STRIPES = 64;
+    private static final int CLEANUP_THRESHOLD = 1_024;
+
+    private final String name;
+    private final double capacity;
+    private final double refillPerNano;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongSupplier nanoClock;
+
+    private final LongAdder allowedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param name            name used in statistics
+     * @param capacity        maximum burst of attempts per key
+     * @param refillPerSecond tokens added back per key per second
+     */
+    public StripedRateLimiter(String name, int capacity, double refillPerSecond) {
+        this(name, capacity, refillPerSecond, System::nanoTime);
+    }
+
+    /**
+     * Creates a rate limiter that reads time from the given clock; lets tests control refills.
+     */
+    StripedRateLimiter(String name, int capacity, double refillPerSecond, LongSupplier nanoClock) {
+        this.name = name;
+        this.nanoClock = nanoClock;
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes one token from the key's bucket if one is available.
+     *
+     * @param key the key to rate-limit on
+     * @return {@code true} if the attempt is allowed; {@code false} if it should be rejected
+     */
+    public boolean tryAcquire(String key) {
+        Stripe stripe = stripes[(key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1)];
+        long now = nanoClock.getAsLong();
+        boolean allowed;
+
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                if (stripe.buckets.size() >= stripe.cleanupAt) {
+                    stripe.removeFullBuckets(now);
+                    // If most buckets are still in use, wait for the stripe to double before the
+                    // next scan, so a flood of new keys does not rescan it on every insert
+                    stripe.cleanupAt = Math.max(CLEANUP_THRESHOLD, stripe.buckets.size() * 2);
+                }
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                refill(bucket, now);
+            }
+
+            allowed = bucket.tokens >= 1.0;
+            if (allowed) {
+                bucket.tokens -= 1.0;
+            }
+        }
+
+        if (allowed) {
+            allowedCount.increment();
+        } else {
+            rejectedCount.increment();
+        }
+        return allowed;
+    }
+
+    /**
+     * Returns how many attempts were rejected since startup.
+     *
+     * @return rejected attempt count
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Returns a one-line summary of the limiter counters.
+     *
+     * @return limiter statistics
+     */
+    public String getStatsSummary() {
+        return name + "{allowed=" + allowedCount.sum() + ", throttled=" + rejectedCount.sum() + '}';
+    }
+
+    /**
+     * Returns the number of keys that currently have a bucket.
+     */
+    int trackedKeyCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.buckets.size();
+            }
+        }
+        return count;
+    }
+
+    private void refill(Bucket bucket, long now) {
+        double added = (now - bucket.lastRefillNanos) * refillPerNano;
+        bucket.tokens = Math.min(capacity, bucket.tokens + added);
+        bucket.lastRefillNanos = now;
+    }
+
+    /**
+     * One lock-protected slice of the key space.
+     */
+    private final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+        private int cleanupAt = CLEANUP_THRESHOLD;
+
+        private void removeFullBuckets(long now) {
+            buckets.values().removeIf(bucket -> {
+                refill(bucket, now);
+                return bucket.tokens >= capacity;
+            });
+        }
+    }
+
+    /**
+     * Token count for one key.
+     */
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+    }
+}
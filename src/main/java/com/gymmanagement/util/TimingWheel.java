@@ -0,0 +1,184 @@
+package com.gymmanagement.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel for large numbers of coarse-grained timeouts.
+ * <p>
+ * Time is divided into ticks of {@code tickMillis}. A timeout due at tick {@code t} is placed in
+ * bucket {@code t % wheelSize}; a background thread advances one tick at a time and expires the
+ * due entries in the current bucket. Scheduling and cancelling are O(1) (each bucket is a doubly
+ * linked list), and the cost of a tick is proportional to the size of one bucket, not to the
+ * total number of timeouts. Timeouts further away than one wheel rotation simply stay in their
+ * bucket until their tick comes round.
+ * <p>
+ * Expiry is approximate: an entry fires up to one tick late, so callers that need an exact
+ * cut-off should also check their own deadline.
+ *
+ * @param <T> type of the item attached to each timeout
+ */
+public class TimingWheel<T> {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private final long tickMillis;
+    private final int mask;
+    private final Bucket<T>[] buckets;
+    private final Consumer<T> onExpire;
+    private final ScheduledExecutorService ticker;
+
+    private volatile long currentTick = 0;
+
+    /**
+     * Creates a wheel and starts its ticker thread.
+     *
+     * @param name       name of the ticker thread
+     * @param tickMillis length of one tick
+     * @param wheelSize  number of buckets (rounded up to a power of two)
+     * @param onExpire   called on the ticker thread with the item of each expired timeout
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tickMillis, int wheelSize, Consumer<T> onExpire) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = (Bucket<T>[]) new Bucket<?>[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.onExpire = onExpire;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+        this.ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a timeout.
+     *
+     * @param item        passed to the expiry callback
+     * @param delayMillis time until expiry
+     * @return a handle that can be used to cancel the timeout
+     */
+    public Timeout<T> schedule(T item, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        Timeout<T> timeout = new Timeout<>(item, currentTick + ticks);
+        buckets[(int) (timeout.deadlineTick & mask)].add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Cancels a timeout. Does nothing if it has already expired or been cancelled.
+     *
+     * @param timeout the handle returned by {@link #schedule(Object, long)}
+     */
+    public void cancel(Timeout<T> timeout) {
+        Bucket<T> bucket = buckets[(int) (timeout.deadlineTick & mask)];
+        bucket.remove(timeout);
+    }
+
+    /**
+     * Stops the ticker thread. Pending timeouts never fire.
+     */
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Advances the wheel by one tick and expires the due timeouts. Called by the ticker thread;
+     * package-private so tests can drive the wheel without waiting.
+     */
+    void tick() {
+        try {
+            long tick = currentTick + 1;
+            currentTick = tick;
+            List<T> expired = buckets[(int) (tick & mask)].expire(tick);
+            for (T item : expired) {
+                onExpire.accept(item);
+            }
+        } catch (RuntimeException e) {
+            // Never let one bad callback kill the ticker thread
+            LOGGER.log(Level.WARNING, "Error while expiring timing wheel entries", e);
+        }
+    }
+
+    /**
+     * A scheduled timeout. Instances are linked into exactly one bucket until they
+     * expire or are cancelled.
+     *
+     * @param <T> item type
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private boolean linked;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+    }
+
+    /**
+     * One slot of the wheel: an intrusive doubly linked list of timeouts.
+     */
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+
+        private synchronized void add(Timeout<T> timeout) {
+            timeout.next = head;
+            timeout.prev = null;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+            timeout.linked = true;
+        }
+
+        private synchronized void remove(Timeout<T> timeout) {
+            if (!timeout.linked) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.linked = false;
+        }
+
+        private synchronized List<T> expire(long tick) {
+            List<T> expired = new ArrayList<>();
+            Timeout<T> current = head;
+            while (current != null) {
+                Timeout<T> next = current.next;
+                if (current.deadlineTick <= tick) {
+                    remove(current);
+                    expired.add(current.item);
+                }
+                current = next;
+            }
+            return expired;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.gymmanagement.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a group of DAO calls on a single connection inside one database transaction.
+ * <p>
+ * While {@link #inTransaction(Supplier)} is running, every call to
+ * {@link DBConnection#getConnection()} or {@link DBConnection#getReadConnection()} made on the
+ * same thread returns the transaction's connection (closing it is a no-op), so existing DAO
+ * methods take part in the transaction without any changes. Nested calls simply join the
+ * outer transaction.
+ * <p>
+ * DAO methods report failures by returning {@code null} or {@code false} rather than throwing,
+ * so service code should call {@link #setRollbackOnly()} when a step fails. The transaction is
+ * also rolled back if the work throws.
+ * <pre>
+ * User created = UnitOfWork.inTransaction(() -&gt; {
+ *     ...
+ *     if (result == null) {
+ *         UnitOfWork.setRollbackOnly();
+ *     }
+ *     return result;
+ * });
+ * </pre>
+ */
+public class UnitOfWork {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger();
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private boolean rollbackOnly = false;
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Runs the given work in a transaction, committing if it completes normally and
+     * {@link #setRollbackOnly()} was not called, and rolling back otherwise. If a transaction
+     * is already active on this thread, the work joins it instead.
+     *
+     * @param work the DAO calls to run
+     * @param <T>  result type
+     * @return whatever {@code work} returned
+     * @throws DataAccessException if the transaction cannot be started or committed
+     */
+    public static <T> T inTransaction(Supplier<T> work) {
+        if (CURRENT.get() != null) {
+            return work.get();
+        }
+
+        Connection conn;
+        try {
+            conn = DBConnection.getConnection();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not start a transaction", e);
+        }
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            // Hand the connection back, or the pool loses it for good
+            try {
+                conn.close();
+            } catch (SQLException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw new DataAccessException("Could not start a transaction", e);
+        }
+
+        UnitOfWork unit = new UnitOfWork(conn);
+        CURRENT.set(unit);
+        try {
+            T result = work.get();
+            if (unit.rollbackOnly) {
+                conn.rollback();
+            } else {
+                conn.commit();
+            }
+            return result;
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            throw new DataAccessException("Could not commit transaction", e);
+        } catch (RuntimeException | Error e) {
+            rollbackQuietly(conn);
+            throw e;
+        } finally {
+            CURRENT.remove();
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error returning transaction connection to the pool", e);
+            }
+        }
+    }
+
+    /**
+     * Marks the current transaction so that it is rolled back instead of committed.
+     * Does nothing when called outside a transaction.
+     */
+    public static void setRollbackOnly() {
+        UnitOfWork unit = CURRENT.get();
+        if (unit != null) {
+            unit.rollbackOnly = true;
+        }
+    }
+
+    /**
+     * Returns whether the current thread is running inside {@link #inTransaction(Supplier)}.
+     *
+     * @return {@code true} if a transaction is active on this thread
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Returns the connection bound to the current thread's transaction, or {@code null}.
+     * Used by {@link DBConnection} to hand the same connection to every DAO call.
+     */
+    static Connection currentConnection() {
+        UnitOfWork unit = CURRENT.get();
+        return unit == null ? null : unit.connection;
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error rolling back transaction", e);
+        }
+    }
+}
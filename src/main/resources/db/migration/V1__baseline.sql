@@ -0,0 +1,47 @@
+-- Baseline schema, identical to the tables in sql/schema.sql.
+-- Uses IF NOT EXISTS so that databases created by schema.sql are left untouched.
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id SERIAL PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password_hash VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    phone_number VARCHAR(20),
+    address VARCHAR(255),
+    role VARCHAR(20) NOT NULL  -- 'ADMIN', 'TRAINER', 'MEMBER'
+);
+
+CREATE TABLE IF NOT EXISTS memberships (
+    membership_id SERIAL PRIMARY KEY,
+    membership_type VARCHAR(50) NOT NULL,
+    membership_description TEXT,
+    membership_cost NUMERIC(10, 2) NOT NULL,
+    member_id INT NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE,
+    CONSTRAINT fk_membership_user
+        FOREIGN KEY (member_id)
+        REFERENCES users(user_id)
+        ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS workout_classes (
+    workout_class_id SERIAL PRIMARY KEY,
+    workout_class_type VARCHAR(50) NOT NULL,
+    workout_class_description TEXT,
+    trainer_id INT NOT NULL,
+    schedule_time TIMESTAMP NOT NULL,
+    capacity INT NOT NULL,
+    CONSTRAINT fk_workout_trainer
+        FOREIGN KEY (trainer_id)
+        REFERENCES users(user_id)
+        ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS gym_merch (
+    merch_id SERIAL PRIMARY KEY,
+    merch_name VARCHAR(100) NOT NULL,
+    merch_type VARCHAR(50) NOT NULL,
+    merch_price NUMERIC(10, 2) NOT NULL,
+    quantity_in_stock INT NOT NULL
+);
@@ -0,0 +1,24 @@
+-- Indexes for the DAO queries that filter or sort on non-key columns.
+
+-- MembershipDAO.getMembershipsByMemberId: WHERE member_id = ? ORDER BY start_date DESC
+CREATE INDEX IF NOT EXISTS idx_memberships_member_start
+    ON memberships (member_id, start_date DESC);
+
+-- Date range queries over memberships (revenue by period, active and expiring memberships)
+CREATE INDEX IF NOT EXISTS idx_memberships_start_date
+    ON memberships (start_date);
+
+CREATE INDEX IF NOT EXISTS idx_memberships_end_date
+    ON memberships (end_date);
+
+-- WorkoutClassDAO.getClassesByTrainerId: WHERE trainer_id = ? ORDER BY schedule_time
+CREATE INDEX IF NOT EXISTS idx_workout_classes_trainer_time
+    ON workout_classes (trainer_id, schedule_time);
+
+-- WorkoutClassDAO.getAllClasses and schedule browsing: ORDER BY / ranges on schedule_time
+CREATE INDEX IF NOT EXISTS idx_workout_classes_schedule_time
+    ON workout_classes (schedule_time);
+
+-- UserDAO.findByRole / findByRolePage: WHERE role = ? [AND user_id > ?] ORDER BY user_id
+CREATE INDEX IF NOT EXISTS idx_users_role_id
+    ON users (role, user_id);
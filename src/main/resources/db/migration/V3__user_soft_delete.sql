@@ -0,0 +1,8 @@
+-- Users are soft-deleted first (deleted_at is set) and purged later by UserPurgeJob.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+-- Finds users waiting to be purged without scanning the whole table
+CREATE INDEX IF NOT EXISTS idx_users_pending_purge
+    ON users (deleted_at)
+    WHERE deleted_at IS NOT NULL;
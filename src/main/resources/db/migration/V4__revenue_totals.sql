@@ -0,0 +1,41 @@
+-- Running revenue totals per membership type, kept up to date by a trigger on memberships,
+-- so the revenue screen reads a handful of rows instead of summing the whole table.
+
+CREATE TABLE IF NOT EXISTS revenue_totals (
+    membership_type VARCHAR(50) PRIMARY KEY,
+    total_revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    membership_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE OR REPLACE FUNCTION maintain_revenue_totals() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE revenue_totals
+           SET total_revenue = total_revenue - OLD.membership_cost,
+               membership_count = membership_count - 1
+         WHERE membership_type = OLD.membership_type;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO revenue_totals (membership_type, total_revenue, membership_count)
+        VALUES (NEW.membership_type, NEW.membership_cost, 1)
+        ON CONFLICT (membership_type) DO UPDATE
+           SET total_revenue = revenue_totals.total_revenue + EXCLUDED.total_revenue,
+               membership_count = revenue_totals.membership_count + 1;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Also fires for rows removed by ON DELETE CASCADE when a user is purged
+DROP TRIGGER IF EXISTS trg_memberships_revenue ON memberships;
+CREATE TRIGGER trg_memberships_revenue
+    AFTER INSERT OR DELETE OR UPDATE OF membership_type, membership_cost ON memberships
+    FOR EACH ROW EXECUTE FUNCTION maintain_revenue_totals();
+
+-- Backfill from existing memberships; the lock keeps new purchases out until this commits
+LOCK TABLE memberships IN SHARE ROW EXCLUSIVE MODE;
+DELETE FROM revenue_totals;
+INSERT INTO revenue_totals (membership_type, total_revenue, membership_count)
+SELECT membership_type, SUM(membership_cost), COUNT(*)
+  FROM memberships
+ GROUP BY membership_type;
@@ -0,0 +1,34 @@
+-- Monthly revenue per membership type for closed months, computed once and reused by reports.
+-- A month is only trusted while it has a row in revenue_monthly_status; changing a membership
+-- that started in a rolled-up month removes that row so the month is recomputed on next use.
+
+CREATE TABLE IF NOT EXISTS revenue_monthly (
+    month DATE NOT NULL,
+    membership_type VARCHAR(50) NOT NULL,
+    total_revenue NUMERIC(14, 2) NOT NULL,
+    membership_count BIGINT NOT NULL,
+    PRIMARY KEY (month, membership_type)
+);
+
+CREATE TABLE IF NOT EXISTS revenue_monthly_status (
+    month DATE PRIMARY KEY,
+    rolled_up_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE OR REPLACE FUNCTION invalidate_revenue_monthly() RETURNS trigger AS $$
+BEGIN
+    -- The current month is never rolled up, so ordinary purchases skip this entirely
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.start_date < date_trunc('month', CURRENT_DATE) THEN
+        DELETE FROM revenue_monthly_status WHERE month = date_trunc('month', OLD.start_date);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.start_date < date_trunc('month', CURRENT_DATE) THEN
+        DELETE FROM revenue_monthly_status WHERE month = date_trunc('month', NEW.start_date);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_memberships_revenue_monthly ON memberships;
+CREATE TRIGGER trg_memberships_revenue_monthly
+    AFTER INSERT OR DELETE OR UPDATE OF membership_type, membership_cost, start_date ON memberships
+    FOR EACH ROW EXECUTE FUNCTION invalidate_revenue_monthly();
@@ -0,0 +1,20 @@
+-- Support for the chunked membership expiry scan (MembershipExpiryScanner).
+
+-- Keyset paging over memberships: WHERE end_date BETWEEN ? AND ? AND (end_date, membership_id) > (?, ?)
+-- ORDER BY end_date, membership_id. Replaces the single-column end_date index.
+CREATE INDEX IF NOT EXISTS idx_memberships_end_date_id
+    ON memberships (end_date, membership_id);
+
+DROP INDEX IF EXISTS idx_memberships_end_date;
+
+-- Resume point of each named scan, so an interrupted run continues where it stopped
+CREATE TABLE IF NOT EXISTS scan_checkpoints (
+    scan_name VARCHAR(100) PRIMARY KEY,
+    range_from DATE NOT NULL,
+    range_to DATE NOT NULL,
+    last_end_date DATE,
+    last_membership_id INTEGER,
+    processed_count BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
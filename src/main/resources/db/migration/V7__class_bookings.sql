@@ -0,0 +1,26 @@
+-- Class enrollment. workout_classes.booked_count is the number of rows in class_bookings for
+-- the class; bookings increase it with a conditional UPDATE (booked_count < capacity), which
+-- is what makes overbooking impossible.
+
+ALTER TABLE workout_classes
+    ADD COLUMN IF NOT EXISTS booked_count INT NOT NULL DEFAULT 0 CHECK (booked_count >= 0);
+
+CREATE TABLE IF NOT EXISTS class_bookings (
+    booking_id SERIAL PRIMARY KEY,
+    workout_class_id INT NOT NULL,
+    member_id INT NOT NULL,
+    booked_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT uq_class_bookings_class_member UNIQUE (workout_class_id, member_id),
+    CONSTRAINT fk_booking_class
+        FOREIGN KEY (workout_class_id)
+        REFERENCES workout_classes(workout_class_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_booking_member
+        FOREIGN KEY (member_id)
+        REFERENCES users(user_id)
+        ON DELETE CASCADE
+);
+
+-- ClassBookingDAO lookups by member (my bookings, purge of a deleted member)
+CREATE INDEX IF NOT EXISTS idx_class_bookings_member
+    ON class_bookings (member_id);
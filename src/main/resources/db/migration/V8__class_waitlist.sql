@@ -0,0 +1,26 @@
+-- Waitlist for full workout classes. waitlist_id increases with every join, so ordering by it
+-- gives first-come, first-served promotion.
+
+CREATE TABLE IF NOT EXISTS class_waitlist (
+    waitlist_id BIGSERIAL PRIMARY KEY,
+    workout_class_id INT NOT NULL,
+    member_id INT NOT NULL,
+    joined_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT uq_class_waitlist_class_member UNIQUE (workout_class_id, member_id),
+    CONSTRAINT fk_waitlist_class
+        FOREIGN KEY (workout_class_id)
+        REFERENCES workout_classes(workout_class_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_waitlist_member
+        FOREIGN KEY (member_id)
+        REFERENCES users(user_id)
+        ON DELETE CASCADE
+);
+
+-- ClassWaitlistDAO: next member to promote, and the queue of one class in order
+CREATE INDEX IF NOT EXISTS idx_class_waitlist_class_order
+    ON class_waitlist (workout_class_id, waitlist_id);
+
+-- Removing a member's entries when the member is purged
+CREATE INDEX IF NOT EXISTS idx_class_waitlist_member
+    ON class_waitlist (member_id);
@@ -0,0 +1,22 @@
+-- How long a workout class runs. A class occupies its trainer from schedule_time up to (but not
+-- including) schedule_time + duration_minutes; existing classes are assumed to last an hour.
+
+ALTER TABLE workout_classes
+    ADD COLUMN IF NOT EXISTS duration_minutes INT NOT NULL DEFAULT 60 CHECK (duration_minutes > 0);
+
+-- The database refuses overlapping classes of the same trainer, so the check in
+-- TrainerScheduleIndex cannot be bypassed by other application instances or direct writes.
+-- tsrange is half-open by default, matching the back-to-back rule above. Classes that already
+-- overlap must be moved or deleted first; the error names the first pair it finds.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'ex_workout_classes_trainer_overlap') THEN
+        ALTER TABLE workout_classes
+            ADD CONSTRAINT ex_workout_classes_trainer_overlap
+            EXCLUDE USING gist (trainer_id WITH =,
+                tsrange(schedule_time, schedule_time + duration_minutes * interval '1 minute') WITH &&);
+    END IF;
+END
+$$;
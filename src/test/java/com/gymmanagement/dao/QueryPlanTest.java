@@ -0,0 +1,134 @@
+package com.gymmanagement.dao;
+
+import com.gymmanagement.util.DBConnection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the hot DAO queries can be answered from their indexes.
+ * <p>
+ * Needs a reachable database (configured as for the application, e.g. with
+ * {@code -Dgym.db.password=...}) and is skipped otherwise. Everything runs in one transaction that
+ * is rolled back at the end: it first inserts a few thousand synthetic users, memberships and
+ * classes and refreshes the planner statistics, so the plans look like those of a well-populated
+ * database no matter how little data the real one holds. Each query is then run through
+ * {@code EXPLAIN} with sequential scans disabled.
+ */
+class QueryPlanTest {
+
+    private static Connection conn;
+    private static int sampleUserId;
+
+    @BeforeAll
+    static void insertSyntheticData() throws SQLException {
+        try {
+            conn = DBConnection.getConnection();
+        } catch (SQLException e) {
+            assumeTrue(false, "No database reachable: " + e.getMessage());
+        }
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO users (username, password_hash, email, role) " +
+                    "SELECT 'plancheck_' || g, 'x', 'plancheck@example.com', " +
+                    "CASE WHEN g % 50 = 0 THEN 'TRAINER' ELSE 'MEMBER' END " +
+                    "FROM generate_series(1, 5000) g");
+            try (ResultSet rs = stmt.executeQuery("SELECT user_id FROM users WHERE username = 'plancheck_1'")) {
+                rs.next();
+                sampleUserId = rs.getInt(1);
+            }
+            // The revenue rollup triggers would update the same totals row for every insert
+            stmt.execute("ALTER TABLE memberships DISABLE TRIGGER USER");
+            stmt.execute("INSERT INTO memberships (membership_type, membership_cost, member_id, start_date, end_date) " +
+                    "SELECT 'Monthly', 50, " + sampleUserId + " + g % 5000, " +
+                    "CURRENT_DATE - g % 1000, CURRENT_DATE - g % 1000 + 30 " +
+                    "FROM generate_series(1, 50000) g");
+            stmt.execute("ALTER TABLE memberships ENABLE TRIGGER USER");
+            stmt.execute("INSERT INTO workout_classes (workout_class_type, trainer_id, schedule_time, capacity) " +
+                    "SELECT 'Yoga', " + sampleUserId + " + g % 5000, " +
+                    "CURRENT_TIMESTAMP + g * INTERVAL '1 hour', 20 " +
+                    "FROM generate_series(1, 20000) g");
+            stmt.execute("ANALYZE users, memberships, workout_classes");
+            stmt.execute("SET LOCAL enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    static void rollBack() throws SQLException {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } finally {
+                conn.close();
+                DBConnection.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void membershipsByMemberUseMemberStartIndex() throws SQLException {
+        assertUsesIndex("idx_memberships_member_start", MembershipDAO.SELECT_BY_MEMBER, sampleUserId);
+        assertUsesIndex("idx_memberships_member_start", MembershipDAO.SELECT_TOTAL_COST_BY_MEMBER, sampleUserId);
+    }
+
+    @Test
+    void expiringMembershipsUseEndDateIndex() throws SQLException {
+        LocalDate today = LocalDate.now();
+        assertUsesIndex("idx_memberships_end_date_id", MembershipDAO.SELECT_END_DATE_CHUNK,
+                today, today.plusDays(7), today.minusDays(1), 0, 500);
+    }
+
+    @Test
+    void classesByTrainerUseATrainerIndex() throws SQLException {
+        // The GiST index behind the trainer overlap constraint also leads with trainer_id
+        String plan = explain(WorkoutClassDAO.SELECT_BY_TRAINER, sampleUserId);
+        assertTrue(plan.contains("idx_workout_classes_trainer_time") || plan.contains("ex_workout_classes_trainer_overlap"),
+                () -> "Expected a trainer index for " + WorkoutClassDAO.SELECT_BY_TRAINER + ", plan was:\n" + plan);
+    }
+
+    @Test
+    void classesByScheduleUseScheduleTimeIndex() throws SQLException {
+        LocalDate today = LocalDate.now();
+        assertUsesIndex("idx_workout_classes_schedule_time", WorkoutClassDAO.SELECT_ALL_BY_SCHEDULE);
+        assertUsesIndex("idx_workout_classes_schedule_time", WorkoutClassDAO.SELECT_SCHEDULED_BETWEEN,
+                today.atStartOfDay(), today.plusDays(7).atStartOfDay());
+        assertUsesIndex("idx_workout_classes_schedule_time", WorkoutClassDAO.SELECT_SCHEDULED_FROM,
+                today.atStartOfDay());
+    }
+
+    @Test
+    void usersByRoleUseRoleIdIndex() throws SQLException {
+        assertUsesIndex("idx_users_role_id", UserDAO.SELECT_BY_ROLE, "TRAINER");
+        assertUsesIndex("idx_users_role_id", UserDAO.SELECT_PAGE_BY_ROLE, "TRAINER", 0, 20);
+    }
+
+    private static void assertUsesIndex(String index, String sql, Object... params) throws SQLException {
+        String plan = explain(sql, params);
+        assertTrue(plan.contains(index), () -> "Expected " + index + " for " + sql + ", plan was:\n" + plan);
+    }
+
+    private static String explain(String sql, Object... params) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package com.gymmanagement.service;
+
+import com.gymmanagement.dao.ClassBookingDAO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassCapacityTrackerTest {
+
+    private static final long NO_RESYNC = 3_600_000;
+
+    private final StubBookingDAO dao = new StubBookingDAO();
+
+    @Test
+    void neverHandsOutMoreThanTheFreeSpotsUnderContention() throws Exception {
+        dao.remaining.put(1, 10);
+        ClassCapacityTracker tracker = new ClassCapacityTracker(dao, NO_RESYNC);
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        if (tracker.tryReserve(1)) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10, granted.get());
+    }
+
+    @Test
+    void releasedSpotCanBeTakenAgain() {
+        dao.remaining.put(1, 2);
+        ClassCapacityTracker tracker = new ClassCapacityTracker(dao, NO_RESYNC);
+
+        assertTrue(tracker.tryReserve(1));
+        assertTrue(tracker.tryReserve(1));
+        assertFalse(tracker.tryReserve(1));
+
+        tracker.release(1);
+        assertTrue(tracker.tryReserve(1));
+        assertFalse(tracker.tryReserve(1));
+        assertEquals(1, dao.lookups.get());
+    }
+
+    @Test
+    void releaseOfUntrackedClassIsIgnored() {
+        dao.remaining.put(1, 1);
+        ClassCapacityTracker tracker = new ClassCapacityTracker(dao, NO_RESYNC);
+
+        tracker.release(1);
+        assertTrue(tracker.tryReserve(1));
+        assertFalse(tracker.tryReserve(1));
+    }
+
+    @Test
+    void invalidatedClassIsReadAgain() {
+        dao.remaining.put(1, 1);
+        dao.remaining.put(2, 1);
+        ClassCapacityTracker tracker = new ClassCapacityTracker(dao, NO_RESYNC);
+        assertTrue(tracker.tryReserve(1));
+        assertTrue(tracker.tryReserve(2));
+        assertFalse(tracker.tryReserve(1));
+
+        // e.g. the capacity was raised
+        dao.remaining.put(1, 3);
+        dao.remaining.put(2, 3);
+        tracker.invalidate(1);
+        assertTrue(tracker.tryReserve(1));
+        assertTrue(tracker.tryReserve(1));
+        assertTrue(tracker.tryReserve(1));
+        assertFalse(tracker.tryReserve(1));
+        assertFalse(tracker.tryReserve(2));
+
+        tracker.invalidateAll();
+        assertTrue(tracker.tryReserve(2));
+        assertEquals(4, dao.lookups.get());
+    }
+
+    @Test
+    void fullClassIsReadAgainOnlyAfterResyncInterval() {
+        dao.remaining.put(1, 0);
+        ClassCapacityTracker tracker = new ClassCapacityTracker(dao, NO_RESYNC);
+        assertFalse(tracker.tryReserve(1));
+        dao.remaining.put(1, 1);
+        assertFalse(tracker.tryReserve(1));
+        assertEquals(1, dao.lookups.get());
+
+        ClassCapacityTracker resyncing = new ClassCapacityTracker(dao, 0);
+        dao.remaining.put(2, 0);
+        assertFalse(resyncing.tryReserve(2));
+        dao.remaining.put(2, 1);
+        assertTrue(resyncing.tryReserve(2));
+    }
+
+    @Test
+    void unknownClassIsLeftToTheDatabase() {
+        ClassCapacityTracker tracker = new ClassCapacityTracker(dao, NO_RESYNC);
+        assertTrue(tracker.tryReserve(99));
+        assertTrue(tracker.tryReserve(99));
+        assertEquals(2, dao.lookups.get());
+    }
+
+    /**
+     * Serves remaining spots from a map instead of the database.
+     */
+    private static final class StubBookingDAO extends ClassBookingDAO {
+        private final Map<Integer, Integer> remaining = new ConcurrentHashMap<>();
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public Integer findRemainingSpots(int workoutClassId) {
+            lookups.incrementAndGet();
+            return remaining.get(workoutClassId);
+        }
+    }
+}
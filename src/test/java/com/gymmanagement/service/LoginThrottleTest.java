@@ -0,0 +1,28 @@
+package com.gymmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginThrottleTest {
+
+    // Refill so slow that no token comes back while the test runs
+    private static final double NO_REFILL = 0.0001;
+
+    @Test
+    void throttledClientDoesNotUseUpTheUsernameBucket() {
+        LoginThrottle throttle = new LoginThrottle(4, NO_REFILL, 3, NO_REFILL);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.checkAttempt("victim", "attacker");
+        }
+        for (int i = 0; i < 20; i++) {
+            assertThrows(LoginThrottledException.class, () -> throttle.checkAttempt("victim", "attacker"));
+        }
+
+        // Three of the username's four attempts were spent; the owner still has one
+        assertDoesNotThrow(() -> throttle.checkAttempt("Victim", "owner"));
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAttempt("victim", "owner"));
+    }
+}
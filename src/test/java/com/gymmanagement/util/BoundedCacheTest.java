@@ -0,0 +1,134 @@
+package com.gymmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return "value-" + key;
+    }
+
+    @Test
+    void staysWithinSizeBound() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 3, 60_000, 60_000);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("key" + i, this::load);
+                assertTrue(cache.getStats().getSize() <= 3);
+            }
+        }
+        assertTrue(cache.getStats().getEvictions() > 0);
+    }
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10, 60_000, 60_000);
+        assertEquals("value-a", cache.get("a", this::load));
+        assertEquals("value-a", cache.get("a", this::load));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    void admitsFrequentKeyButNotOneHitKey() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 2, 60_000, 60_000);
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        cache.get("b", this::load);
+
+        // Seen once, no more popular than the least recently used entry: rejected
+        cache.get("oneHit", this::load);
+        assertEquals(1, cache.getStats().getRejections());
+        int before = loads.get();
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        assertEquals(before, loads.get(), "resident entries must survive a one-hit key");
+
+        // Asked for repeatedly: becomes more popular than the victim and is admitted
+        for (int i = 0; i < 4; i++) {
+            cache.get("frequent", this::load);
+        }
+        before = loads.get();
+        cache.get("frequent", this::load);
+        assertEquals(before, loads.get(), "frequent key must be cached");
+        assertEquals(2, cache.getStats().getSize());
+        assertTrue(cache.getStats().getEvictions() > 0);
+    }
+
+    @Test
+    void negativeEntriesExpireSoonerThanValues() throws InterruptedException {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10, 60_000, 50);
+        AtomicInteger missingLoads = new AtomicInteger();
+
+        assertNull(cache.get("missing", k -> {
+            missingLoads.incrementAndGet();
+            return null;
+        }));
+        cache.get("missing", k -> {
+            missingLoads.incrementAndGet();
+            return null;
+        });
+        assertEquals(1, missingLoads.get(), "a not-found result is cached");
+        cache.get("present", this::load);
+
+        Thread.sleep(120);
+
+        cache.get("missing", k -> {
+            missingLoads.incrementAndGet();
+            return null;
+        });
+        assertEquals(2, missingLoads.get(), "a not-found result expires after the negative TTL");
+        cache.get("present", this::load);
+        assertEquals(1, loads.get(), "values keep their own, longer TTL");
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10, 60_000, 60_000);
+        assertThrows(IllegalStateException.class, () -> cache.get("k", key -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals("value-k", cache.get("k", this::load));
+        assertEquals(1, loads.get(), "the failure must not be remembered as \"not found\"");
+        assertEquals(1, cache.getStats().getSize());
+    }
+
+    @Test
+    void loadRacingWithInvalidateDoesNotStoreStaleValue() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10, 60_000, 60_000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        CompletableFuture<String> slowLoad = CompletableFuture.supplyAsync(() -> cache.get("k", key -> {
+            loading.countDown();
+            try {
+                invalidated.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "stale";
+        }));
+
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.invalidate("k");
+        invalidated.countDown();
+        assertEquals("stale", slowLoad.get(5, TimeUnit.SECONDS));
+
+        assertEquals("fresh", cache.get("k", key -> "fresh"));
+        assertEquals("fresh", cache.get("k", key -> "other"));
+    }
+}
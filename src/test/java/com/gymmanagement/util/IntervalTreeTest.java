@@ -0,0 +1,130 @@
+package com.gymmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    // Upper bound on the height of an AVL tree with n nodes
+    private static void assertBalanced(IntervalTree<?> tree) {
+        double bound = 1.45 * Math.log(tree.size() + 2) / Math.log(2);
+        assertTrue(tree.height() <= bound, "height " + tree.height() + " for " + tree.size() + " intervals");
+    }
+
+    @Test
+    void staysBalancedWhenInsertedAndRemovedInOrder() {
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(tree.add(i * 10L, i * 10L + 5, i));
+            assertBalanced(tree);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(tree.remove(i * 10L, i * 10L + 5, i));
+            assertBalanced(tree);
+        }
+        assertEquals(500, tree.size());
+        for (int i = 999; i > 0; i -= 2) {
+            assertTrue(tree.remove(i * 10L, i * 10L + 5, i));
+            assertBalanced(tree);
+        }
+        assertEquals(0, tree.size());
+        assertFalse(tree.overlapsAny(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomInsertsAndRemovals() {
+        Random random = new Random(42);
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        List<long[]> expected = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                long low = random.nextInt(1000);
+                long[] interval = {low, low + 1 + random.nextInt(50), random.nextInt(5)};
+                boolean present = expected.stream().anyMatch(e -> e[0] == interval[0]
+                        && e[1] == interval[1] && e[2] == interval[2]);
+                assertEquals(!present, tree.add(interval[0], interval[1], (int) interval[2]));
+                if (!present) {
+                    expected.add(interval);
+                }
+            } else {
+                long[] interval = expected.remove(random.nextInt(expected.size()));
+                assertTrue(tree.remove(interval[0], interval[1], (int) interval[2]));
+            }
+            assertEquals(expected.size(), tree.size());
+
+            long low = random.nextInt(1100) - 50;
+            long high = low + 1 + random.nextInt(60);
+            List<String> overlapping = expected.stream()
+                    .filter(e -> e[0] < high && low < e[1])
+                    .sorted(Comparator.<long[]>comparingLong(e -> e[0])
+                            .thenComparingLong(e -> e[1]).thenComparingLong(e -> e[2]))
+                    .map(e -> "[" + e[0] + ", " + e[1] + ")=" + e[2])
+                    .collect(Collectors.toList());
+            assertEquals(overlapping, toStrings(tree.findOverlapping(low, high)));
+            assertEquals(!overlapping.isEmpty(), tree.overlapsAny(low, high));
+        }
+        assertBalanced(tree);
+    }
+
+    @Test
+    void storesSameIntervalOncePerValue() {
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        assertTrue(tree.add(10, 20, 1));
+        assertFalse(tree.add(10, 20, 1));
+        assertTrue(tree.add(10, 20, 2));
+        assertEquals(2, tree.size());
+        assertEquals(List.of("[10, 20)=1", "[10, 20)=2"), toStrings(tree.findContaining(15)));
+
+        assertTrue(tree.remove(10, 20, 1));
+        assertFalse(tree.remove(10, 20, 1));
+        assertEquals(List.of("[10, 20)=2"), toStrings(tree.findContaining(15)));
+        assertFalse(tree.remove(10, 21, 2));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void treatsIntervalsAsHalfOpen() {
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        tree.add(10, 20, 1);
+
+        // Ranges that only touch an end do not overlap
+        assertFalse(tree.overlapsAny(20, 30));
+        assertFalse(tree.overlapsAny(0, 10));
+        assertTrue(tree.findOverlapping(20, 30).isEmpty());
+        assertTrue(tree.findOverlapping(0, 10).isEmpty());
+
+        assertTrue(tree.overlapsAny(19, 30));
+        assertTrue(tree.overlapsAny(0, 11));
+        assertEquals(List.of("[10, 20)=1"), toStrings(tree.findOverlapping(19, 30)));
+        assertEquals(List.of("[10, 20)=1"), toStrings(tree.findOverlapping(0, 11)));
+
+        assertEquals(1, tree.findContaining(10).size());
+        assertTrue(tree.findContaining(20).isEmpty());
+
+        // Back-to-back intervals do not overlap each other
+        tree.add(20, 30, 2);
+        assertEquals(List.of("[20, 30)=2"), toStrings(tree.findContaining(20)));
+    }
+
+    @Test
+    void rejectsEmptyIntervals() {
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        assertThrows(IllegalArgumentException.class, () -> tree.add(10, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> tree.add(10, 5, 1));
+        assertEquals(0, tree.size());
+    }
+
+    private static List<String> toStrings(List<IntervalTree.Interval<Integer>> intervals) {
+        return intervals.stream().map(IntervalTree.Interval::toString).collect(Collectors.toList());
+    }
+}
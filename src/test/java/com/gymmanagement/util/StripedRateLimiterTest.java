@@ -0,0 +1,90 @@
+package com.gymmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        StripedRateLimiter limiter = new StripedRateLimiter("test", 5, 1.0, now::get);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("alice"), "attempt " + (i + 1));
+        }
+        assertFalse(limiter.tryAcquire("alice"));
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void refillsContinuouslyAtConfiguredRate() {
+        StripedRateLimiter limiter = new StripedRateLimiter("test", 2, 2.0, now::get);
+        assertTrue(limiter.tryAcquire("bob"));
+        assertTrue(limiter.tryAcquire("bob"));
+        assertFalse(limiter.tryAcquire("bob"));
+
+        // 2 tokens per second: 200 ms gives 0.4 of a token, not enough
+        advanceMillis(200);
+        assertFalse(limiter.tryAcquire("bob"));
+        // Partial tokens accumulate: another 400 ms makes 1.2 tokens
+        advanceMillis(400);
+        assertTrue(limiter.tryAcquire("bob"));
+        assertFalse(limiter.tryAcquire("bob"));
+    }
+
+    @Test
+    void longIdlePeriodRefillsOnlyToCapacity() {
+        StripedRateLimiter limiter = new StripedRateLimiter("test", 3, 10.0, now::get);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("carol");
+        }
+        advanceMillis(TimeUnit.HOURS.toMillis(1));
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire("carol")) {
+                allowed++;
+            }
+        }
+        assertEquals(3, allowed);
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        StripedRateLimiter limiter = new StripedRateLimiter("test", 1, 1.0, now::get);
+        assertTrue(limiter.tryAcquire("dave"));
+        assertFalse(limiter.tryAcquire("dave"));
+        assertTrue(limiter.tryAcquire("erin"));
+    }
+
+    @Test
+    void dropsFullBucketsOnceStripesGrowLarge() {
+        StripedRateLimiter limiter = new StripedRateLimiter("test", 5, 1.0, now::get);
+        int keys = 100_000;
+        for (int i = 0; i < keys; i++) {
+            limiter.tryAcquire("old" + i);
+        }
+        // Nothing has refilled yet, so every bucket still carries information
+        for (int i = 0; i < keys; i++) {
+            limiter.tryAcquire("new" + i);
+        }
+        assertEquals(2 * keys, limiter.trackedKeyCount());
+
+        advanceMillis(10_000);
+        for (int i = 0; i < keys; i++) {
+            limiter.tryAcquire("newer" + i);
+        }
+        // All older buckets refilled completely and were dropped; the newest ones are in use
+        assertEquals(keys, limiter.trackedKeyCount());
+    }
+}
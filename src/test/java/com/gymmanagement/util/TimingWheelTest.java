@@ -0,0 +1,102 @@
+package com.gymmanagement.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    // Long enough that the ticker thread never fires during a test; the tests tick by hand
+    private static final long TICK_MILLIS = 3_600_000L;
+
+    private final List<String> expired = new ArrayList<>();
+    private final TimingWheel<String> wheel = new TimingWheel<>("test-wheel", TICK_MILLIS, 8, expired::add);
+
+    @AfterEach
+    void stopWheel() {
+        wheel.stop();
+    }
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            wheel.tick();
+        }
+    }
+
+    @Test
+    void expiresOnItsTick() {
+        wheel.schedule("a", 3 * TICK_MILLIS);
+        advance(2);
+        assertTrue(expired.isEmpty());
+        advance(1);
+        assertEquals(List.of("a"), expired);
+        advance(20);
+        assertEquals(List.of("a"), expired, "an expired timeout fires only once");
+    }
+
+    @Test
+    void roundsPartialTicksUp() {
+        wheel.schedule("short", 1);
+        wheel.schedule("partial", TICK_MILLIS + 1);
+        advance(1);
+        assertEquals(List.of("short"), expired);
+        advance(1);
+        assertEquals(List.of("short", "partial"), expired);
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() {
+        TimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", 2 * TICK_MILLIS);
+        wheel.schedule("kept", 2 * TICK_MILLIS);
+        wheel.cancel(timeout);
+        wheel.cancel(timeout);
+        advance(5);
+        assertEquals(List.of("kept"), expired);
+    }
+
+    @Test
+    void timeoutLongerThanOneRotationWaitsForItsDeadline() {
+        // 8 buckets: a 20-tick timeout shares its bucket with ticks 4 and 12
+        wheel.schedule("long", 20 * TICK_MILLIS);
+        wheel.schedule("sameBucket", 4 * TICK_MILLIS);
+        advance(4);
+        assertEquals(List.of("sameBucket"), expired);
+        advance(15);
+        assertEquals(List.of("sameBucket"), expired);
+        advance(1);
+        assertEquals(List.of("sameBucket", "long"), expired);
+    }
+
+    @Test
+    void sessionSizedWheelHandlesIdleTimeoutOfSeveralRotations() {
+        // Same shape as the session wheel: 512 one-second buckets, 1800 s idle timeout
+        List<Integer> fired = new ArrayList<>();
+        TimingWheel<Integer> sessions = new TimingWheel<>("test-sessions", TICK_MILLIS, 512, fired::add);
+        try {
+            sessions.schedule(1800, 1800 * TICK_MILLIS);
+            for (int tick = 1; tick < 1800; tick++) {
+                sessions.tick();
+            }
+            assertTrue(fired.isEmpty(), "must not fire on earlier rotations through its bucket");
+            sessions.tick();
+            assertEquals(List.of(1800), fired);
+        } finally {
+            sessions.stop();
+        }
+    }
+
+    @Test
+    void delayIsRelativeToCurrentTick() {
+        advance(10);
+        wheel.schedule("late", 8 * TICK_MILLIS);
+        advance(7);
+        assertTrue(expired.isEmpty());
+        advance(1);
+        assertEquals(List.of("late"), expired);
+    }
+}